@@ -23,6 +23,7 @@
 
 package appeng.api.networking.storage;
 
+import appeng.api.config.FuzzyMode;
 import appeng.api.storage.data.IAEStack;
 
 /**
@@ -41,6 +42,21 @@ public interface IStackWatcher {
      */
     boolean add(IAEStack<?> stack);
 
+    /**
+     * Watch all stacks that are equal to the given stack with regard to the given {@link FuzzyMode}. Every matching
+     * stack is reported individually when its amount changes.
+     *
+     * Supports multiple values, duplicate ones will not be added. Watchers that do not support fuzzy watches do not add
+     * anything.
+     *
+     * @param stack
+     * @param fuzzyMode
+     * @return true, if successfully added.
+     */
+    default boolean addFuzzy(IAEStack<?> stack, FuzzyMode fuzzyMode) {
+        return false;
+    }
+
     /**
      * Remove a specific {@link IAEStack} from the watcher.
      *
@@ -49,6 +65,17 @@ public interface IStackWatcher {
      */
     boolean remove(IAEStack<?> stack);
 
+    /**
+     * Remove a fuzzy watch added by {@link #addFuzzy(IAEStack, FuzzyMode)}.
+     *
+     * @param stack
+     * @param fuzzyMode
+     * @return true, if successfully removed.
+     */
+    default boolean removeFuzzy(IAEStack<?> stack, FuzzyMode fuzzyMode) {
+        return false;
+    }
+
     /**
      * Removes all watched stacks and resets the watcher to a clean state.
      */
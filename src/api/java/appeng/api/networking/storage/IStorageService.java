@@ -23,11 +23,14 @@
 
 package appeng.api.networking.storage;
 
+import appeng.api.config.FuzzyMode;
 import appeng.api.networking.IGridService;
 import appeng.api.networking.security.IActionSource;
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.IStorageMonitorable;
+import appeng.api.storage.StorageChannels;
 import appeng.api.storage.cells.ICellProvider;
+import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 
 /**
@@ -64,4 +67,28 @@ <T extends IAEStack<T>> void postAlterationOfStoredItems(IStorageChannel<T> chan
      * remove a provider added with {@link #registerAdditionalCellProvider(ICellProvider)}.
      */
     void unregisterAdditionalCellProvider(ICellProvider cc);
+
+    /**
+     * @return The total amount of all items stored in the grid.
+     */
+    default long getStoredItemCount() {
+        long total = 0;
+        for (IAEItemStack stack : getInventory(StorageChannels.items()).getStorageList()) {
+            total += stack.getStackSize();
+        }
+        return total;
+    }
+
+    /**
+     * @return The total amount of all items stored in the grid that are equal to the given filter with regard to the
+     *         given {@link FuzzyMode}.
+     */
+    default long getStoredItemCount(IAEItemStack filter, FuzzyMode fuzzyMode) {
+        long total = 0;
+        for (IAEItemStack stack : getInventory(StorageChannels.items()).getStorageList().findFuzzy(filter,
+                fuzzyMode)) {
+            total += stack.getStackSize();
+        }
+        return total;
+    }
 }
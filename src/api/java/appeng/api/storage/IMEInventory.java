@@ -23,6 +23,9 @@
 
 package appeng.api.storage;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.minecraft.world.item.ItemStack;
 
 import appeng.api.config.Actionable;
@@ -63,6 +66,46 @@
      */
     T extractItems(T request, Actionable mode, IActionSource src);
 
+    /**
+     * Store multiple stacks at once, or simulate their addition. Each stack is handled as if it was passed to
+     * {@link #injectItems(IAEStack, Actionable, IActionSource)} in the given order, but inventories may perform
+     * per-call work like permission checks and change notifications only once for the whole batch.
+     *
+     * @param inputs items to add.
+     * @param type   action type
+     * @param src    action source
+     *
+     * @return the items not added for each input, in the same order. Entries are null for inputs that were added
+     *         completely.
+     */
+    default List<T> injectMultiple(List<T> inputs, Actionable type, IActionSource src) {
+        final List<T> leftovers = new ArrayList<>(inputs.size());
+        for (T input : inputs) {
+            leftovers.add(this.injectItems(input, type, src));
+        }
+        return leftovers;
+    }
+
+    /**
+     * Extract multiple items at once, or simulate their extraction. Each request is handled as if it was passed to
+     * {@link #extractItems(IAEStack, Actionable, IActionSource)} in the given order, but inventories may perform
+     * per-call work like permission checks and change notifications only once for the whole batch.
+     *
+     * @param requests items to request ( with stack size. )
+     * @param mode     simulate, or perform action?
+     * @param src      action source
+     *
+     * @return the items extracted for each request, in the same order. Entries are null for requests of which nothing
+     *         could be extracted.
+     */
+    default List<T> extractMultiple(List<T> requests, Actionable mode, IActionSource src) {
+        final List<T> extracted = new ArrayList<>(requests.size());
+        for (T request : requests) {
+            extracted.add(this.extractItems(request, mode, src));
+        }
+        return extracted;
+    }
+
     /**
      * request a full report of all available items, storage.
      *
@@ -49,4 +49,15 @@
      * called when the list updates its contents, this is mostly for handling power events.
      */
     void onListUpdate();
+
+    /**
+     * Declares whether this listener can receive changes once at the end of the tick, coalesced with all other changes
+     * made during that tick, instead of immediately after every single change. Monitors are free to ignore this and
+     * always deliver changes immediately.
+     *
+     * @return true if changes may be delivered at the end of the tick.
+     */
+    default boolean acceptsDeferredChanges() {
+        return false;
+    }
 }
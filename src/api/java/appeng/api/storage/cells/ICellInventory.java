@@ -117,6 +117,16 @@
      */
     CellState getStatusForCell();
 
+    /**
+     * Like the other counts of this interface, this is answered from the summary kept with the cell and does not
+     * require the stored items to be decoded.
+     *
+     * @return true if no items are stored in this cell.
+     */
+    default boolean isEmpty() {
+        return this.getStoredItemTypes() == 0;
+    }
+
     /**
      * Tells the cell to persist to NBT
      */
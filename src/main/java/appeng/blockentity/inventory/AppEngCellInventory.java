@@ -55,6 +55,14 @@ public int getSlots() {
         return this.inv.getSlots();
     }
 
+    /**
+     * Returns the cell in the given slot without writing pending changes of its inventory to it first. The returned
+     * stack must not be copied or moved elsewhere.
+     */
+    public ItemStack getCellWithoutPersisting(int slot) {
+        return this.inv.getStackInSlot(slot);
+    }
+
     @Override
     public ItemStack getStackInSlot(int slot) {
         this.persist(slot);
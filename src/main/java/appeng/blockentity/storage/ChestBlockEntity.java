@@ -19,6 +19,7 @@
 package appeng.blockentity.storage;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -90,12 +91,15 @@
 import appeng.api.util.IConfigManager;
 import appeng.blockentity.ServerTickingBlockEntity;
 import appeng.blockentity.grid.AENetworkPowerBlockEntity;
+import appeng.blockentity.inventory.AppEngCellInventory;
 import appeng.blockentity.inventory.AppEngInternalInventory;
 import appeng.capabilities.Capabilities;
+import appeng.core.AEConfig;
 import appeng.core.definitions.AEBlocks;
 import appeng.helpers.IPriorityHost;
 import appeng.me.helpers.MEMonitorHandler;
 import appeng.me.helpers.MachineSource;
+import appeng.me.service.StorageService;
 import appeng.me.storage.MEInventoryHandler;
 import appeng.menu.me.fluids.FluidTerminalMenu;
 import appeng.menu.me.items.ItemTerminalMenu;
@@ -119,7 +123,7 @@ public class ChestBlockEntity extends AENetworkPowerBlockEntity
     private static final int BIT_CELL_STATE_BITS = 3;
 
     private final AppEngInternalInventory inputInventory = new AppEngInternalInventory(this, 1);
-    private final AppEngInternalInventory cellInventory = new AppEngInternalInventory(this, 1);
+    private final AppEngCellInventory cellInventory = new AppEngCellInventory(this, 1);
     private final IItemHandler internalInventory = new WrapperChainedItemHandler(this.inputInventory,
             this.cellInventory);
 
@@ -158,7 +162,8 @@ public ChestBlockEntity(BlockEntityType<?> blockEntityType, BlockPos pos, BlockS
     }
 
     public ItemStack getCell() {
-        return this.cellInventory.getStackInSlot(0);
+        // Reading the cell for display purposes must not force its pending changes to be written
+        return this.cellInventory.getCellWithoutPersisting(0);
     }
 
     @Override
@@ -221,6 +226,7 @@ private void updateHandler() {
                         if (newCell != null) {
                             idlePowerUsage += cellHandler.cellIdleDrain(is, newCell);
                             this.cellHandler = this.wrap(newCell);
+                            this.cellInventory.setHandler(0, newCell);
                             break;
                         }
                     }
@@ -236,6 +242,23 @@ private void updateHandler() {
         }
     }
 
+    /**
+     * Creates the handler for the new cell and replaces the previous handler with it in the storage of the grid.
+     *
+     * @return False if the grid couldn't replace the cell, in which case it has to rebuild its storage instead.
+     */
+    private boolean replaceCell(@Nullable ChestMonitorHandler<?> previousHandler) {
+        final IGrid grid = this.getMainNode().getGrid();
+        if (grid == null || !this.getMainNode().isActive()) {
+            return false;
+        }
+
+        this.updateHandler();
+
+        var storageService = (StorageService) grid.getStorageService();
+        return storageService.replaceCell(this, previousHandler, this.cellHandler, this.mySrc);
+    }
+
     private <T extends IAEStack<T>> ChestMonitorHandler<T> wrap(final IMEInventoryHandler<T> h) {
         if (h == null) {
             return null;
@@ -427,14 +450,26 @@ public IItemHandler getInternalInventory() {
     @Override
     public void onChangeInventory(final IItemHandler inv, final int slot, final InvOperation mc,
             final ItemStack removed, final ItemStack added) {
-        if (inv == this.cellInventory) {
+        if (inv == this.inputInventory) {
+            if (mc == InvOperation.INSERT) {
+                this.tryToStoreContents();
+            }
+        } else {
+            // The grid only knows the previous handler if it was cached, or if there was no cell at all
+            final boolean previousHandlerKnown = this.isCached || removed.isEmpty();
+            final ChestMonitorHandler<?> previousHandler = this.cellHandler;
+
+            // Changes to the cell slot are reported by the inventory wrapped by the cell inventory
             this.cellHandler = null;
             this.isCached = false; // recalculate the storage cell.
 
-            ifGridPresent(g -> {
-                g.postEvent(new GridCellArrayUpdate());
-                Platform.postWholeCellChanges(g.getStorageService(), removed, added, this.mySrc);
-            });
+            if (!previousHandlerKnown || !AEConfig.instance().isIncrementalCellChanges()
+                    || !this.replaceCell(previousHandler)) {
+                ifGridPresent(g -> {
+                    g.postEvent(new GridCellArrayUpdate());
+                    Platform.postWholeCellChanges(g.getStorageService(), removed, added, this.mySrc);
+                });
+            }
 
             // update the neighbors
             if (this.level != null) {
@@ -442,9 +477,6 @@ public void onChangeInventory(final IItemHandler inv, final int slot, final InvO
                 this.markForUpdate();
             }
         }
-        if (inv == this.inputInventory && mc == InvOperation.INSERT) {
-            this.tryToStoreContents();
-        }
     }
 
     @Override
@@ -553,9 +585,7 @@ public boolean recolourBlock(final Direction side, final AEColor newPaintedColor
     }
 
     private void saveChanges(final ICellInventory<?> cellInventory) {
-        if (cellInventory != null) {
-            cellInventory.persist();
-        }
+        // The cell is persisted by the cell inventory before it is saved or removed from the chest
         this.level.blockEntityChanged(this.worldPosition);
     }
 
@@ -619,6 +649,14 @@ public T injectItems(final T input, final Actionable mode, final IActionSource s
             return super.injectItems(input, mode, src);
         }
 
+        @Override
+        public List<T> injectMultiple(final List<T> inputs, final Actionable mode, final IActionSource src) {
+            if (src.player().map(player -> !this.securityCheck(player, SecurityPermissions.INJECT)).orElse(false)) {
+                return new ArrayList<>(inputs);
+            }
+            return super.injectMultiple(inputs, mode, src);
+        }
+
         private boolean securityCheck(final Player player, final SecurityPermissions requiredPermission) {
             if (ChestBlockEntity.this.getBlockEntity() instanceof IActionHost && requiredPermission != null) {
 
@@ -651,6 +689,14 @@ public T extractItems(final T request, final Actionable mode, final IActionSourc
             }
             return super.extractItems(request, mode, src);
         }
+
+        @Override
+        public List<T> extractMultiple(final List<T> requests, final Actionable mode, final IActionSource src) {
+            if (src.player().map(player -> !this.securityCheck(player, SecurityPermissions.EXTRACT)).orElse(false)) {
+                return new ArrayList<>(Collections.nCopies(requests.size(), null));
+            }
+            return super.extractMultiple(requests, mode, src);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -61,9 +61,11 @@
 import appeng.blockentity.grid.AENetworkInvBlockEntity;
 import appeng.blockentity.inventory.AppEngCellInventory;
 import appeng.client.render.model.DriveModelData;
+import appeng.core.AEConfig;
 import appeng.core.definitions.AEBlocks;
 import appeng.helpers.IPriorityHost;
 import appeng.me.helpers.MachineSource;
+import appeng.me.service.StorageService;
 import appeng.me.storage.DriveWatcher;
 import appeng.menu.implementations.DriveMenu;
 import appeng.util.Platform;
@@ -83,6 +85,7 @@ public class DriveBlockEntity extends AENetworkInvBlockEntity implements IChestO
     private final AppEngCellInventory inv = new AppEngCellInventory(this, SLOT_COUNT);
     private final ICellHandler[] handlersBySlot = new ICellHandler[SLOT_COUNT];
     private final DriveWatcher<?>[] invBySlot = new DriveWatcher[SLOT_COUNT];
+    private final double[] idlePowerBySlot = new double[SLOT_COUNT];
     private final IActionSource mySrc;
     private boolean isCached = false;
     private final Map<IStorageChannel<?>, List<IMEInventoryHandler>> inventoryHandlers;
@@ -311,6 +314,11 @@ public IItemHandler getInternalInventory() {
     @Override
     public void onChangeInventory(final IItemHandler inv, final int slot, final InvOperation mc,
             final ItemStack removed, final ItemStack added) {
+        if (this.isCached && AEConfig.instance().isIncrementalCellChanges() && this.replaceCellInSlot(slot)) {
+            this.markForUpdate();
+            return;
+        }
+
         if (this.isCached) {
             this.isCached = false; // recalculate the storage cell.
             this.updateState();
@@ -331,16 +339,47 @@ private void updateState() {
                 this.inventoryHandlers.put(channel, new ArrayList<>(SLOT_COUNT));
             }
 
-            double power = 2.0;
             for (int slot = 0; slot < this.inv.getSlots(); slot++) {
-                power += updateStateForSlot(slot);
+                this.idlePowerBySlot[slot] = updateStateForSlot(slot);
             }
-            this.getMainNode().setIdlePowerUsage(power);
+            this.updateIdlePowerUsage();
 
             this.isCached = true;
         }
     }
 
+    /**
+     * Recreates the handler of a single slot and replaces it in the storage of the grid, leaving the handlers of the
+     * other slots untouched.
+     *
+     * @return False if the grid couldn't replace the cell, in which case it has to rebuild its storage instead.
+     */
+    private boolean replaceCellInSlot(int slot) {
+        var grid = this.getMainNode().getGrid();
+        if (grid == null || !this.getMainNode().isActive()) {
+            return false;
+        }
+
+        final DriveWatcher<?> removed = this.invBySlot[slot];
+        if (removed != null) {
+            this.inventoryHandlers.get(removed.getChannel()).remove(removed);
+        }
+
+        this.idlePowerBySlot[slot] = updateStateForSlot(slot);
+        this.updateIdlePowerUsage();
+
+        var storageService = (StorageService) grid.getStorageService();
+        return storageService.replaceCell(this, removed, this.invBySlot[slot], this.mySrc);
+    }
+
+    private void updateIdlePowerUsage() {
+        double power = 2.0;
+        for (double slotPower : this.idlePowerBySlot) {
+            power += slotPower;
+        }
+        this.getMainNode().setIdlePowerUsage(power);
+    }
+
     // Returns idle power draw of slot
     private double updateStateForSlot(int slot) {
         final ItemStack is = this.inv.getStackInSlot(slot);
@@ -18,6 +18,7 @@
 
 package appeng.blockentity.storage;
 
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +59,8 @@
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.StorageCells;
 import appeng.api.storage.StorageChannels;
+import appeng.api.storage.cells.ICellInventory;
+import appeng.api.storage.cells.ICellInventoryHandler;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
 import appeng.api.util.AECableType;
@@ -65,6 +68,7 @@
 import appeng.api.util.IConfigurableObject;
 import appeng.blockentity.grid.AENetworkInvBlockEntity;
 import appeng.blockentity.inventory.AppEngInternalInventory;
+import appeng.core.AEConfig;
 import appeng.core.definitions.AEBlocks;
 import appeng.core.settings.TickRates;
 import appeng.me.helpers.MachineSource;
@@ -101,6 +105,10 @@ public class IOPortBlockEntity extends AENetworkInvBlockEntity
     private YesNo lastRedstoneState;
     private ItemStack currentCell;
     private Map<IStorageChannel<?>, IMEInventory<?>> cachedInventories;
+    /**
+     * Position of the streaming transfer in each source inventory of the current cell.
+     */
+    private final Map<IMEInventory<?>, TransferCursor> transferCursors = new IdentityHashMap<>();
 
     public IOPortBlockEntity(BlockEntityType<?> blockEntityType, BlockPos pos, BlockState blockState) {
         super(blockEntityType, pos, blockState);
@@ -304,6 +312,7 @@ private IMEInventory<?> getInv(final ItemStack is, final IStorageChannel<?> chan
         if (this.currentCell != is) {
             this.currentCell = is;
             this.cachedInventories = new IdentityHashMap<>();
+            this.transferCursors.clear();
 
             for (var c : StorageChannels.getAll()) {
                 this.cachedInventories.put(c, StorageCells.getCellInventory(is, null, c));
@@ -315,6 +324,10 @@ private IMEInventory<?> getInv(final ItemStack is, final IStorageChannel<?> chan
 
     private long transferContents(final IEnergySource energy, final IMEInventory src, final IMEInventory destination,
             long itemsToMove, final IStorageChannel chan) {
+        if (AEConfig.instance().isStreamingIOPort()) {
+            return this.streamContents(energy, src, destination, itemsToMove, chan);
+        }
+
         final IItemList<? extends IAEStack> myList;
         if (src instanceof IMEMonitor) {
             myList = ((IMEMonitor) src).getStorageList();
@@ -370,6 +383,101 @@ private long transferContents(final IEnergySource energy, final IMEInventory src
         return itemsToMove / chan.transferFactor();
     }
 
+    /**
+     * Moves the contents of the source by walking over its item types once, skipping the types the destination does
+     * not accept. The transfer continues with the next type on the following tick.
+     */
+    private long streamContents(final IEnergySource energy, final IMEInventory src, final IMEInventory destination,
+            long itemsToMove, final IStorageChannel chan) {
+        itemsToMove *= chan.transferFactor();
+
+        final TransferCursor cursor = this.transferCursors.computeIfAbsent(src, s -> new TransferCursor());
+        while (itemsToMove > 0) {
+            if (!cursor.hasNext()) {
+                // Only start another pass if the last one made progress, or nothing has been walked yet
+                if (cursor.isStarted() && !cursor.hasMovedItems()) {
+                    cursor.reset(null);
+                    break;
+                }
+                cursor.reset(this.getContents(src));
+                if (!cursor.hasNext()) {
+                    break;
+                }
+            }
+
+            final IAEStack type = cursor.current();
+            final IAEStack request = type.copy();
+            request.setStackSize(Math.min(type.getStackSize(), itemsToMove));
+
+            final long moved = moveStack(energy, src, destination, request, this.mySrc);
+            if (moved > 0) {
+                itemsToMove -= moved;
+                cursor.setMovedItems();
+            }
+
+            type.decStackSize(moved);
+            if (moved < request.getStackSize() || type.getStackSize() <= 0) {
+                // The destination is full for this type, or it has been moved completely
+                cursor.next();
+            }
+        }
+
+        return itemsToMove / chan.transferFactor();
+    }
+
+    /**
+     * Moves up to the requested amount from the source to the destination. The transfer is simulated against both
+     * sides and the available power first, so nothing is extracted that can't be stored and paid for. This matters for
+     * sources that can't take back what they gave, i.e. extract-only storage buses.
+     *
+     * @return the amount that was moved
+     */
+    static <T extends IAEStack<T>> long moveStack(final IEnergySource energy, final IMEInventory<T> src,
+            final IMEInventory<T> destination, final T request, final IActionSource actionSource) {
+        final T available = src.extractItems(request.copy(), Actionable.SIMULATE, actionSource);
+        if (available == null || available.getStackSize() <= 0) {
+            return 0;
+        }
+
+        final T refused = Platform.poweredInsert(energy, destination, available, actionSource, Actionable.SIMULATE);
+        final long possible = available.getStackSize() - (refused == null ? 0 : refused.getStackSize());
+        if (possible <= 0) {
+            return 0;
+        }
+
+        final T extracted = src.extractItems(available.copy().setStackSize(possible), Actionable.MODULATE,
+                actionSource);
+        if (extracted == null) {
+            return 0;
+        }
+
+        long moved = extracted.getStackSize();
+        final T failed = Platform.poweredInsert(energy, destination, extracted, actionSource);
+        if (failed != null) {
+            // Only inventories whose simulation disagrees with the actual operation get here
+            moved -= failed.getStackSize();
+            src.injectItems(failed, Actionable.MODULATE, actionSource);
+        }
+        return moved;
+    }
+
+    private List<IAEStack> getContents(final IMEInventory src) {
+        final IItemList<? extends IAEStack> list;
+        if (src instanceof IMEMonitor) {
+            list = ((IMEMonitor) src).getStorageList();
+        } else {
+            list = src.getAvailableItems();
+        }
+
+        final List<IAEStack> contents = new ArrayList<>(list.size());
+        for (final IAEStack s : list) {
+            if (s.getStackSize() > 0) {
+                contents.add(s.copy());
+            }
+        }
+        return contents;
+    }
+
     private boolean shouldMove(final IMEInventory<?> inv) {
         final FullnessMode fm = this.manager.getSetting(Settings.FULLNESS_MODE);
 
@@ -394,6 +502,15 @@ private boolean matches(final FullnessMode fm, final IMEInventory src) {
             return true;
         }
 
+        // Cells can answer this from their summary without decoding the stored items
+        if (src instanceof ICellInventoryHandler handler && handler.getCellInv() != null) {
+            final ICellInventory<?> cellInv = handler.getCellInv();
+            if (fm == FullnessMode.EMPTY) {
+                return cellInv.isEmpty();
+            }
+            return !cellInv.isEmpty() && cellInv.getRemainingItemCount() <= 0;
+        }
+
         final IItemList<? extends IAEStack> myList;
 
         if (src instanceof IMEMonitor) {
@@ -414,6 +531,46 @@ private boolean matches(final FullnessMode fm, final IMEInventory src) {
         return false;
     }
 
+    /**
+     * The item types of a source inventory that are left to be moved in the current pass of a streaming transfer.
+     */
+    private static class TransferCursor {
+        @Nullable
+        private List<IAEStack> types;
+        private int position;
+        private boolean movedItems;
+
+        boolean isStarted() {
+            return this.types != null;
+        }
+
+        boolean hasNext() {
+            return this.types != null && this.position < this.types.size();
+        }
+
+        IAEStack current() {
+            return this.types.get(this.position);
+        }
+
+        void next() {
+            this.position++;
+        }
+
+        boolean hasMovedItems() {
+            return this.movedItems;
+        }
+
+        void setMovedItems() {
+            this.movedItems = true;
+        }
+
+        void reset(@Nullable List<IAEStack> types) {
+            this.types = types;
+            this.position = 0;
+            this.movedItems = false;
+        }
+    }
+
     /**
      * Adds the items in the upgrade slots to the drop list.
      *
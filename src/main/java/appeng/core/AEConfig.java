@@ -82,10 +82,23 @@ public final class AEConfig {
     // Misc
     private boolean removeCrashingItemsOnLoad;
     private int formationPlaneEntityLimit;
+    private boolean streamingIOPort;
+    private boolean indexedInventoryScan;
     private boolean enableEffects;
     private boolean useLargeFonts;
     private boolean useColoredCraftingStatus;
     private int craftingCalculationTimePerTick;
+    private int craftingCalculationThreads;
+    private boolean incrementalStorageList;
+    private boolean batchStorageChanges;
+    private boolean compactStorageList;
+    private boolean incrementalCellChanges;
+    private boolean bucketedFuzzyIndex;
+    private boolean craftingStorageSnapshots;
+    private boolean lazyCraftingTree;
+    private boolean craftingPlanMemo;
+    private boolean craftingPlanCache;
+    private boolean storageRecursionTrace;
     private PowerUnits selectedPowerUnit = PowerUnits.AE;
 
     // GUI Buttons
@@ -163,6 +176,8 @@ private void syncCommonConfig() {
         this.wirelessTerminalDrainMultiplier = COMMON.wirelessTerminalDrainMultiplier.get();
 
         this.formationPlaneEntityLimit = COMMON.formationPlaneEntityLimit.get();
+        this.streamingIOPort = COMMON.streamingIOPort.get();
+        this.indexedInventoryScan = COMMON.indexedInventoryScan.get();
 
         this.wirelessTerminalBattery = COMMON.wirelessTerminalBattery.get();
         this.chargedStaffBattery = COMMON.chargedStaffBattery.get();
@@ -180,9 +195,21 @@ private void syncCommonConfig() {
         this.spatialPowerExponent = COMMON.spatialPowerExponent.get();
 
         this.craftingCalculationTimePerTick = COMMON.craftingCalculationTimePerTick.get();
+        this.craftingCalculationThreads = COMMON.craftingCalculationThreads.get();
 
         this.removeCrashingItemsOnLoad = COMMON.removeCrashingItemsOnLoad.get();
 
+        this.incrementalStorageList = COMMON.incrementalStorageList.get();
+        this.batchStorageChanges = COMMON.batchStorageChanges.get();
+        this.compactStorageList = COMMON.compactStorageList.get();
+        this.incrementalCellChanges = COMMON.incrementalCellChanges.get();
+        this.bucketedFuzzyIndex = COMMON.bucketedFuzzyIndex.get();
+        this.craftingStorageSnapshots = COMMON.craftingStorageSnapshots.get();
+        this.lazyCraftingTree = COMMON.lazyCraftingTree.get();
+        this.craftingPlanMemo = COMMON.craftingPlanMemo.get();
+        this.craftingPlanCache = COMMON.craftingPlanCache.get();
+        this.storageRecursionTrace = COMMON.storageRecursionTrace.get();
+
         AEWorldGenInternal.setConfigBlacklists(
                 COMMON.quartzOresBiomeBlacklist.get().stream().map(ResourceLocation::new)
                         .collect(Collectors.toList()),
@@ -282,6 +309,14 @@ public int getFormationPlaneEntityLimit() {
         return this.formationPlaneEntityLimit;
     }
 
+    public boolean isStreamingIOPort() {
+        return this.streamingIOPort;
+    }
+
+    public boolean isIndexedInventoryScan() {
+        return this.indexedInventoryScan;
+    }
+
     public boolean isEnableEffects() {
         return this.enableEffects;
     }
@@ -306,6 +341,46 @@ public int getCraftingCalculationTimePerTick() {
         return this.craftingCalculationTimePerTick;
     }
 
+    public int getCraftingCalculationThreads() {
+        return this.craftingCalculationThreads;
+    }
+
+    public boolean isIncrementalStorageList() {
+        return this.incrementalStorageList;
+    }
+
+    public boolean isBatchStorageChanges() {
+        return this.batchStorageChanges;
+    }
+
+    public boolean isCompactStorageList() {
+        return this.compactStorageList;
+    }
+
+    public boolean isIncrementalCellChanges() {
+        return this.incrementalCellChanges;
+    }
+
+    public boolean isBucketedFuzzyIndex() {
+        return this.bucketedFuzzyIndex;
+    }
+
+    public boolean isCraftingStorageSnapshots() {
+        return this.craftingStorageSnapshots;
+    }
+
+    public boolean isLazyCraftingTree() {
+        return this.lazyCraftingTree;
+    }
+
+    public boolean isCraftingPlanMemo() {
+        return this.craftingPlanMemo;
+    }
+
+    public boolean isCraftingPlanCache() {
+        return this.craftingPlanCache;
+    }
+
     public double getSpatialPowerExponent() {
         return this.spatialPowerExponent;
     }
@@ -427,6 +502,10 @@ public boolean isChunkLoggerTraceEnabled() {
         return COMMON.chunkLoggerTrace.get();
     }
 
+    public boolean isStorageRecursionTrace() {
+        return this.storageRecursionTrace;
+    }
+
     // Setters keep visibility as low as possible.
 
     private static class ClientConfig {
@@ -498,12 +577,28 @@ private static class CommonConfig {
         // Misc
         public final BooleanValue removeCrashingItemsOnLoad;
         public final ConfigValue<Integer> formationPlaneEntityLimit;
+        public final BooleanValue streamingIOPort;
+        public final BooleanValue indexedInventoryScan;
         public final ConfigValue<Integer> craftingCalculationTimePerTick;
+        public final ConfigValue<Integer> craftingCalculationThreads;
         public final BooleanValue allowBlockEntityFacades;
         public final BooleanValue debugTools;
         public final BooleanValue matterCannonBlockDamage;
         public final BooleanValue tinyTntBlockDamage;
 
+        // Network Storage
+        public final BooleanValue incrementalStorageList;
+        public final BooleanValue batchStorageChanges;
+        public final BooleanValue compactStorageList;
+        public final BooleanValue incrementalCellChanges;
+        public final BooleanValue bucketedFuzzyIndex;
+
+        // Crafting CPU
+        public final BooleanValue craftingStorageSnapshots;
+        public final BooleanValue lazyCraftingTree;
+        public final BooleanValue craftingPlanMemo;
+        public final BooleanValue craftingPlanCache;
+
         // Crafting
         public final BooleanValue inWorldSingularity;
         public final BooleanValue inWorldFluix;
@@ -521,6 +616,7 @@ private static class CommonConfig {
         public final BooleanValue craftingLog;
         public final BooleanValue debugLog;
         public final BooleanValue chunkLoggerTrace;
+        public final BooleanValue storageRecursionTrace;
 
         // Grindstone
         public final DoubleValue oreDoublePercentage;
@@ -587,6 +683,12 @@ public CommonConfig(ForgeConfigSpec.Builder builder) {
 
             builder.push("automation");
             formationPlaneEntityLimit = builder.comment("TODO").define("formationPlaneEntityLimit", 128);
+            streamingIOPort = builder.comment(
+                    "IO ports walk the contents of a cell only once, moving as many item types as their speed allows per tick and continuing where they stopped on the next tick. Otherwise they start over after every item type they moved.")
+                    .define("streamingIOPort", false);
+            indexedInventoryScan = builder.comment(
+                    "Storage buses remember which slots of an inventory hold which items and scan large inventories for changes a limited number of slots per tick, instead of scanning every slot on every tick and searching all slots for every extraction.")
+                    .define("indexedInventoryScan", false);
             builder.pop();
 
             builder.push("facades");
@@ -595,9 +697,42 @@ public CommonConfig(ForgeConfigSpec.Builder builder) {
                     .define("allowBlockEntities", false);
             builder.pop();
 
+            builder.push("networkStorage");
+            incrementalStorageList = builder.comment(
+                    "Keep the cached network item list up to date by applying the changes of storage operations instead of rebuilding it from all storage after every change. It is still fully rebuilt when storage is added to or removed from the network, or when external inventories report changes.")
+                    .define("incrementalStorageList", false);
+            batchStorageChanges = builder.comment(
+                    "Collect the storage changes of a network during a tick and notify terminals once at the end of the tick instead of after every single change. Level emitters and all other listeners are still notified immediately.")
+                    .define("batchStorageChanges", false);
+            compactStorageList = builder.comment(
+                    "Store the cached network item list as counts per item type id instead of one item stack object per entry. Reduces memory use on networks with many different item types.")
+                    .define("compactStorageList", false);
+            incrementalCellChanges = builder.comment(
+                    "Update only the affected cell when a cell is inserted into or removed from a drive or chest, and post the difference of its content, instead of rebuilding the storage of the whole network.")
+                    .define("incrementalCellChanges", false);
+            bucketedFuzzyIndex = builder.comment(
+                    "Index damageable items in item lists by the durability bands of the fuzzy modes, so fuzzy export buses, fuzzy partitions and fuzzy level emitters look up matching items directly instead of searching all stored variants.")
+                    .define("bucketedFuzzyIndex", false);
+            builder.pop();
+
             builder.push("craftingCPU");
 
             this.craftingCalculationTimePerTick = builder.define("craftingCalculationTimePerTick", 5);
+            craftingCalculationThreads = builder.comment(
+                    "Number of threads crafting calculations share. Calculations then run on their own against a copy of the network storage, and are queued once all threads are busy. With 0, every calculation gets a thread of its own that only runs while the server thread waits for it, for craftingCalculationTimePerTick milliseconds per tick. Requires a restart.")
+                    .defineInRange("craftingCalculationThreads", 0, 0, 64);
+            craftingStorageSnapshots = builder.comment(
+                    "Crafting calculations read the network storage through a snapshot that only copies the item types they actually use, instead of copying the entire network storage at the start of every calculation.")
+                    .define("craftingStorageSnapshots", false);
+            lazyCraftingTree = builder.comment(
+                    "Only look up the patterns of an ingredient once a crafting calculation actually needs to craft it, instead of building the tree of all alternative patterns before the calculation starts. Byte totals no longer include unused alternatives. Calculations that run on their own (see craftingCalculationThreads) always build the full tree up front, since pattern lookups must happen on the server thread.")
+                    .define("lazyCraftingTree", false);
+            craftingPlanMemo = builder.comment(
+                    "Remember how an ingredient that is crafted with a single pattern was planned and reuse that plan when the same ingredient is needed again later in the same crafting calculation, as long as its inputs are still available.")
+                    .define("craftingPlanMemo", false);
+            craftingPlanCache = builder.comment(
+                    "Remember the last crafting calculations machines of a network requested, and hand out the completed plan when a machine requests the same amount of the same item again, as long as the patterns of the network did not change and it still stores the ingredients of the plan.")
+                    .define("craftingPlanCache", false);
 
             builder.pop();
 
@@ -626,6 +761,9 @@ public CommonConfig(ForgeConfigSpec.Builder builder) {
             debugLog = builder.define("debugLog", false);
             chunkLoggerTrace = builder.comment("Enable stack trace logging for the chunk loading debug command")
                     .define("chunkLoggerTrace", false);
+            storageRecursionTrace = builder.comment(
+                    "Record the path of nested network storage calls and log it whenever a network is reached recursively (i.e. through storage buses)")
+                    .define("storageRecursionTrace", false);
             builder.pop();
 
             builder.push("GrindStone");
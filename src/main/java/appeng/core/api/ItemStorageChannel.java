@@ -30,6 +30,7 @@
 import appeng.api.storage.channels.IItemStorageChannel;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
 import appeng.core.AppEng;
 import appeng.util.item.AEItemStack;
 import appeng.util.item.ItemList;
@@ -49,7 +50,7 @@ public ResourceLocation getId() {
 
     @Override
     public IItemList<IAEItemStack> createList() {
-        return new ItemList();
+        return new ItemList(AEConfig.instance().isBucketedFuzzyIndex());
     }
 
     @Override
@@ -21,6 +21,8 @@
 import java.util.HashMap;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Stopwatch;
 
 import net.minecraft.nbt.CompoundTag;
@@ -40,11 +42,20 @@
 import appeng.api.storage.StorageChannels;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.hooks.ticking.TickHandler;
 
 public class CraftingJob implements Runnable, ICraftingJob {
     private static final String LOG_CRAFTING_JOB = "CraftingJob (%s) issued by %s requesting [%s] using %s bytes took %s ms";
+    private static final String LOG_CRAFTING_TREE = "CraftingJob (%s) built %s tree nodes (%s expanded) "
+            + "with %s processes, reused %s plans, ~%s KiB estimated tree size";
+    /**
+     * Rough retained size of a tree node, including its copy of the requested stack, its list of used items and its
+     * list of processes, and of a process, including the map of its inputs. Only used for logging.
+     */
+    private static final long ESTIMATED_NODE_BYTES = 256;
+    private static final long ESTIMATED_PROCESS_BYTES = 192;
     private static final String LOG_MACHINE_SOURCE_DETAILS = "Machine[object=%s, %s, %s]";
 
     private final MECraftingInventory original;
@@ -65,23 +76,45 @@ public class CraftingJob implements Runnable, ICraftingJob {
     private boolean done = false;
     private int time = 5;
     private int incTime = Integer.MAX_VALUE;
+    /**
+     * True if this job runs on its own, instead of only in the time slices handed to it by the server thread.
+     */
+    private final boolean detached;
+    /**
+     * True if the tree is expanded during the calculation. Expanding a node looks up patterns and fires crafting
+     * events, which is only safe while the server thread waits for this job, so detached jobs always build the full
+     * tree.
+     */
+    private final boolean lazyTree;
+    @Nullable
+    private final CraftingPlanMemo planMemo = AEConfig.instance().isCraftingPlanMemo() ? new CraftingPlanMemo()
+            : null;
+    private int treeNodes = 0;
+    private int expandedNodes = 0;
+    private int treeProcesses = 0;
+    private int reusedPlans = 0;
 
     private Level wrapLevel(final Level level) {
         return level;
     }
 
     public CraftingJob(final Level level, final IGrid grid, final IActionSource actionSrc, final IAEItemStack what,
-            final ICraftingCallback callback) {
+            final ICraftingCallback callback, final boolean detached) {
         this.level = this.wrapLevel(level);
         this.output = what.copy();
         this.actionSrc = actionSrc;
+        this.detached = detached;
+        this.lazyTree = !detached && AEConfig.instance().isLazyCraftingTree();
 
         this.callback = callback;
         final ICraftingService cc = grid.getService(ICraftingService.class);
         final IStorageService sg = grid.getService(IStorageService.class);
+        // A StorageSnapshot falls through to the live storage list of the network, which only the server thread may
+        // read. Detached jobs run on their own thread, so they get a full copy of the storage list taken right here on
+        // the server thread instead. That copy is the snapshot they calculate against.
         this.original = new MECraftingInventory(
                 sg.getInventory(StorageChannels.items()), actionSrc,
-                false, false, false);
+                false, false, false, !detached);
 
         this.setTree(this.getCraftingTree(cc, what));
         this.availableCheck = null;
@@ -120,7 +153,9 @@ void addMissing(IAEItemStack what) {
     public void run() {
         try {
             try {
-                TickHandler.instance().registerCraftingSimulation(this.level, this);
+                if (!this.detached) {
+                    TickHandler.instance().registerCraftingSimulation(this.level, this);
+                }
                 this.handlePausing();
 
                 final Stopwatch timer = Stopwatch.createStarted();
@@ -151,6 +186,9 @@ public void run() {
 
                     this.availableCheck = new MECraftingInventory(this.original, false, false, false);
 
+                    if (this.planMemo != null) {
+                        this.planMemo.clear();
+                    }
                     this.getTree().setSimulate();
                     this.getTree().request(craftingInventory, this.output.getStackSize(), this.actionSrc);
                     this.getTree().dive(this);
@@ -191,21 +229,23 @@ void handlePausing() throws InterruptedException {
         if (this.incTime > 100) {
             this.incTime = 0;
 
-            synchronized (this.monitor) {
-                if (this.watch.elapsed(TimeUnit.MICROSECONDS) > this.time) {
-                    this.running = false;
-                    this.watch.stop();
-                    this.monitor.notify();
-                }
+            if (!this.detached) {
+                synchronized (this.monitor) {
+                    if (this.watch.elapsed(TimeUnit.MICROSECONDS) > this.time) {
+                        this.running = false;
+                        this.watch.stop();
+                        this.monitor.notify();
+                    }
 
-                if (!this.running) {
-                    AELog.craftingDebug("crafting job will now sleep");
+                    if (!this.running) {
+                        AELog.craftingDebug("crafting job will now sleep");
 
-                    while (!this.running) {
-                        this.monitor.wait();
-                    }
+                        while (!this.running) {
+                            this.monitor.wait();
+                        }
 
-                    AELog.craftingDebug("crafting job now active");
+                        AELog.craftingDebug("crafting job now active");
+                    }
                 }
             }
 
@@ -222,6 +262,7 @@ private void finish() {
         }
 
         this.availableCheck = null;
+        this.original.release();
 
         synchronized (this.monitor) {
             this.running = false;
@@ -299,6 +340,34 @@ void addBytes(final long crafts) {
         this.bytes += crafts;
     }
 
+    /**
+     * @return True if tree nodes should only create the processes for their patterns when they are requested.
+     */
+    boolean isLazyTree() {
+        return this.lazyTree;
+    }
+
+    void onNodeCreated() {
+        this.treeNodes++;
+    }
+
+    void onNodeExpanded(final int processes) {
+        this.expandedNodes++;
+        this.treeProcesses += processes;
+    }
+
+    /**
+     * @return The profiles of the items crafted so far by this job, or null if they shouldn't be reused.
+     */
+    @Nullable
+    CraftingPlanMemo getPlanMemo() {
+        return this.planMemo;
+    }
+
+    void onPlanReused() {
+        this.reusedPlans++;
+    }
+
     public CraftingTreeNode getTree() {
         return this.tree;
     }
@@ -326,6 +395,11 @@ private void logCraftingJob(String type, Stopwatch timer) {
             }
 
             AELog.crafting(LOG_CRAFTING_JOB, type, actionSource, itemToOutput, this.bytes, elapsedTime);
+
+            final long treeSize = (this.treeNodes * ESTIMATED_NODE_BYTES
+                    + this.treeProcesses * ESTIMATED_PROCESS_BYTES) / 1024;
+            AELog.crafting(LOG_CRAFTING_TREE, type, this.treeNodes, this.expandedNodes, this.treeProcesses,
+                    this.reusedPlans, treeSize);
         }
     }
 
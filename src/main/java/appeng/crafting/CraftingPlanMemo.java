@@ -0,0 +1,316 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import appeng.api.config.Actionable;
+import appeng.api.networking.crafting.ICraftingPatternDetails;
+import appeng.api.networking.security.IActionSource;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.cluster.implementations.CraftingCPUCluster;
+
+/**
+ * Remembers, for the duration of a crafting job, how much of which resources crafting an item with a specific pattern
+ * needed, so that later occurrences of the same item in the crafting tree can be planned without walking its subtree
+ * again.
+ * <p/>
+ * A recorded profile is only reused if the inventory of the calculation still contains all the resources it consumes,
+ * and none of the items crafted within it. In that case, walking the subtree would take the same resources from the
+ * inventory and craft the same items. Otherwise the subtree is walked as usual.
+ */
+class CraftingPlanMemo {
+
+    private final Map<Key, Profile> profiles = new HashMap<>();
+
+    @Nullable
+    Profile get(final IAEItemStack what, final ICraftingPatternDetails details) {
+        return this.profiles.get(new Key(what, details));
+    }
+
+    boolean contains(final IAEItemStack what, final ICraftingPatternDetails details) {
+        return this.profiles.containsKey(new Key(what, details));
+    }
+
+    /**
+     * Records how the given amount of an item was crafted.
+     *
+     * @param result  The crafted item that was handed to the parent of the crafting tree node.
+     * @param changes The net changes of the inventory while the item was crafted, including the leftovers of the item
+     *                itself.
+     * @param crafts  The crafts and bytes that were added to the subtree while the item was crafted.
+     */
+    void record(final IAEItemStack what, final ICraftingPatternDetails details, final long amount,
+            final IAEItemStack result, final IItemList<IAEItemStack> changes, final Crafts crafts) {
+        if (crafts.missing != 0 || crafts.emitted != 0) {
+            return; // Depends on items that can't be taken from the inventory
+        }
+
+        final List<IAEItemStack> craftedItems = new ArrayList<>();
+        for (final CraftedPattern crafted : crafts.patterns.values()) {
+            for (final IAEItemStack output : crafted.details.getOutputs()) {
+                final IAEItemStack change = changes.findPrecise(output);
+                if (change != null && change.getStackSize() < 0) {
+                    return; // Also taken from the inventory, so the subtree depends on the stock of this item
+                }
+                craftedItems.add(output.copy().setStackSize(1));
+            }
+        }
+
+        final List<IAEItemStack> consumed = new ArrayList<>();
+        final List<IAEItemStack> produced = new ArrayList<>();
+        boolean linear = true;
+        for (final IAEItemStack change : changes) {
+            if (change.getStackSize() < 0) {
+                consumed.add(change.copy().setStackSize(-change.getStackSize()));
+            } else if (change.getStackSize() > 0) {
+                produced.add(change.copy());
+            } else {
+                continue;
+            }
+            linear &= change.getStackSize() % amount == 0;
+        }
+        for (final CraftedPattern crafted : crafts.patterns.values()) {
+            linear &= crafted.crafts % amount == 0;
+        }
+        // Leftovers (i.e. 3 of the 4 planks crafted from a log for a single plank) are used up by later requests
+        // instead of growing with the requested amount
+        linear &= produced.isEmpty();
+
+        final Profile profile = new Profile(linear ? 1 : amount, linear, result.copy().setStackSize(1), consumed,
+                produced, craftedItems);
+        final long divisor = linear ? amount : 1;
+        for (final IAEItemStack stack : consumed) {
+            stack.setStackSize(stack.getStackSize() / divisor);
+        }
+        for (final IAEItemStack stack : produced) {
+            stack.setStackSize(stack.getStackSize() / divisor);
+        }
+        for (final CraftedPattern crafted : crafts.patterns.values()) {
+            profile.crafts.addCrafts(crafted.details, crafted.output, crafted.crafts / divisor);
+        }
+        profile.crafts.bytes = (crafts.bytes + divisor - 1) / divisor;
+
+        this.profiles.putIfAbsent(new Key(what, details), profile);
+    }
+
+    void clear() {
+        this.profiles.clear();
+    }
+
+    private record Key(IAEItemStack what, ICraftingPatternDetails details) {
+        private Key(final IAEItemStack what, final ICraftingPatternDetails details) {
+            // Items are compared without their amount, which changes while the tree is walked
+            this.what = what.copy().setStackSize(1);
+            this.details = details;
+        }
+    }
+
+    /**
+     * The resources needed to craft an item with a specific pattern, either for the recorded amount, or per item if
+     * they are proportional to the crafted amount. They are only proportional if crafting left nothing over, since
+     * leftovers would be used by a later walk of the subtree instead of crafting the full amount again.
+     */
+    static class Profile {
+
+        private final long amount;
+        private final boolean proportional;
+        private final IAEItemStack result;
+        private final List<IAEItemStack> consumed;
+        private final List<IAEItemStack> produced;
+        private final List<IAEItemStack> craftedItems;
+        private final Crafts crafts = new Crafts();
+
+        private Profile(final long amount, final boolean proportional, final IAEItemStack result,
+                final List<IAEItemStack> consumed, final List<IAEItemStack> produced,
+                final List<IAEItemStack> craftedItems) {
+            this.amount = amount;
+            this.proportional = proportional;
+            this.result = result;
+            this.consumed = consumed;
+            this.produced = produced;
+            this.craftedItems = craftedItems;
+        }
+
+        /**
+         * @return True if this profile can be applied to craft the given amount from the given inventory.
+         */
+        boolean canApply(final MECraftingInventory inv, final long requested, final IActionSource src) {
+            if (!this.proportional && requested != this.amount) {
+                return false; // Only proportional profiles can be scaled
+            }
+
+            final long scale = requested / this.amount;
+            for (final IAEItemStack stack : this.consumed) {
+                final IAEItemStack needed = stack.copy().setStackSize(stack.getStackSize() * scale);
+                final IAEItemStack available = inv.extractItems(needed, Actionable.SIMULATE, src);
+                if (available == null || available.getStackSize() < needed.getStackSize()) {
+                    return false;
+                }
+            }
+
+            for (final IAEItemStack stack : this.craftedItems) {
+                if (inv.extractItems(stack, Actionable.SIMULATE, src) != null) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Takes the consumed resources from the inventory and adds the produced ones.
+         *
+         * @return The consumed resources.
+         */
+        List<IAEItemStack> apply(final MECraftingInventory inv, final long requested, final Crafts target,
+                final IActionSource src) throws CraftBranchFailure {
+            final long scale = requested / this.amount;
+            final List<IAEItemStack> extracted = new ArrayList<>(this.consumed.size());
+
+            for (final IAEItemStack stack : this.consumed) {
+                final IAEItemStack needed = stack.copy().setStackSize(stack.getStackSize() * scale);
+                final IAEItemStack available = inv.extractItems(needed, Actionable.MODULATE, src);
+                if (available == null || available.getStackSize() != needed.getStackSize()) {
+                    throw new CraftBranchFailure(needed, needed.getStackSize());
+                }
+                extracted.add(available);
+            }
+
+            for (final IAEItemStack stack : this.produced) {
+                inv.injectItems(stack.copy().setStackSize(stack.getStackSize() * scale), Actionable.MODULATE, src);
+            }
+
+            target.addAll(this.crafts, scale);
+            return extracted;
+        }
+
+        IAEItemStack createResult(final long requested) {
+            return this.result.copy().setStackSize(requested);
+        }
+
+    }
+
+    /**
+     * The crafts of a subtree, per pattern.
+     */
+    static class Crafts {
+
+        private final Map<ICraftingPatternDetails, CraftedPattern> patterns = new HashMap<>();
+        private long bytes;
+        private long missing;
+        private long emitted;
+
+        void addCrafts(final ICraftingPatternDetails details, final IAEItemStack output, final long crafts) {
+            final CraftedPattern crafted = this.patterns.get(details);
+            if (crafted != null) {
+                crafted.crafts += crafts;
+            } else {
+                this.patterns.put(details, new CraftedPattern(details, output, crafts));
+            }
+        }
+
+        void addBytes(final long bytes) {
+            this.bytes += bytes;
+        }
+
+        void addMissing(final long missing) {
+            this.missing += missing;
+        }
+
+        void addEmitted(final long emitted) {
+            this.emitted += emitted;
+        }
+
+        void addAll(final Crafts other, final long scale) {
+            for (final CraftedPattern crafted : other.patterns.values()) {
+                this.addCrafts(crafted.details, crafted.output, crafted.crafts * scale);
+            }
+            this.bytes += other.bytes * scale;
+            this.missing += other.missing * scale;
+            this.emitted += other.emitted * scale;
+        }
+
+        /**
+         * @return The crafts that were added since the given state was collected.
+         */
+        Crafts since(final Crafts before) {
+            final Crafts result = new Crafts();
+            for (final CraftedPattern crafted : this.patterns.values()) {
+                final CraftedPattern previous = before.patterns.get(crafted.details);
+                final long crafts = crafted.crafts - (previous != null ? previous.crafts : 0);
+                if (crafts != 0) {
+                    result.addCrafts(crafted.details, crafted.output, crafts);
+                }
+            }
+            result.bytes = this.bytes - before.bytes;
+            result.missing = this.missing - before.missing;
+            result.emitted = this.emitted - before.emitted;
+            return result;
+        }
+
+        long getBytes() {
+            return this.bytes;
+        }
+
+        void dive(final CraftingJob job, final int depth) {
+            for (final CraftedPattern crafted : this.patterns.values()) {
+                job.addTask(crafted.output, crafted.crafts, crafted.details, depth);
+            }
+        }
+
+        void setJob(final CraftingCPUCluster craftingCPUCluster) {
+            for (final CraftedPattern crafted : this.patterns.values()) {
+                craftingCPUCluster.addCrafting(crafted.details, crafted.crafts);
+            }
+        }
+
+        void getPlan(final IItemList<IAEItemStack> plan) {
+            for (final CraftedPattern crafted : this.patterns.values()) {
+                for (IAEItemStack i : crafted.details.getOutputs()) {
+                    i = i.copy();
+                    i.setCountRequestable(i.getStackSize() * crafted.crafts);
+                    plan.addRequestable(i);
+                }
+            }
+        }
+
+    }
+
+    private static class CraftedPattern {
+
+        private final ICraftingPatternDetails details;
+        private final IAEItemStack output;
+        private long crafts;
+
+        private CraftedPattern(final ICraftingPatternDetails details, final IAEItemStack output, final long crafts) {
+            this.details = details;
+            this.output = output;
+            this.crafts = crafts;
+        }
+
+    }
+
+}
@@ -22,6 +22,8 @@
 import java.util.Collection;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.Lists;
 
 import net.minecraft.world.level.Level;
@@ -40,6 +42,8 @@ public class CraftingTreeNode {
 
     // what slot!
     private final int slot;
+    private final int depth;
+    private final ICraftingService cc;
     private final CraftingJob job;
     private final IItemList<IAEItemStack> used = StorageChannels.items()
             .createList();
@@ -55,6 +59,12 @@ public class CraftingTreeNode {
     private long missing = 0;
     private long howManyEmitted = 0;
     private boolean exhausted = false;
+    private boolean expanded = false;
+    /**
+     * Crafts that were planned by reusing the profile of an earlier occurrence of this item instead of the processes.
+     */
+    @Nullable
+    private CraftingPlanMemo.Crafts reusedCrafts;
 
     private boolean sim;
 
@@ -63,24 +73,46 @@ public CraftingTreeNode(final ICraftingService cc, final CraftingJob job, final
         this.what = wat;
         this.parent = par;
         this.slot = slot;
+        this.depth = depth;
+        this.cc = cc;
         this.level = job.getLevel();
         this.job = job;
-        this.sim = false;
+        // Nodes of a lazily expanded tree may be created during the simulation pass
+        this.sim = job.isSimulation();
+
+        job.onNodeCreated();
 
         this.canEmit = cc.canEmitFor(this.what);
 
+        if (!job.isLazyTree()) {
+            this.expand();
+        }
+    }
+
+    /**
+     * Creates the processes for all patterns that can craft this item. Processes create their child nodes right away,
+     * so unless the tree is expanded lazily, this builds the complete subtree of all alternative patterns.
+     */
+    private void expand() {
+        if (this.expanded) {
+            return;
+        }
+        this.expanded = true;
+
         if (this.canEmit) {
             return; // if you can emit for something, you can't make it with patterns.
         }
 
-        for (final ICraftingPatternDetails details : cc.getCraftingFor(this.what,
-                this.parent == null ? null : this.parent.details, slot, this.level))// in
+        for (final ICraftingPatternDetails details : this.cc.getCraftingFor(this.what,
+                this.parent == null ? null : this.parent.details, this.slot, this.level))// in
         // order.
         {
             if (this.parent == null || this.parent.notRecursive(details)) {
-                this.nodes.add(new CraftingTreeProcess(cc, job, details, this, depth + 1));
+                this.nodes.add(new CraftingTreeProcess(this.cc, this.job, details, this, this.depth + 1));
             }
         }
+
+        this.job.onNodeExpanded(this.nodes.size());
     }
 
     boolean notRecursive(final ICraftingPatternDetails details) {
@@ -196,28 +228,63 @@ IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource
 
         this.exhausted = true;
 
+        // Only needed once the item can't be taken from storage anymore
+        this.expand();
+
         if (this.nodes.size() == 1) {
             final CraftingTreeProcess pro = this.nodes.get(0);
+            final CraftingPlanMemo memo = this.job.getPlanMemo();
+
+            if (memo != null) {
+                final CraftingPlanMemo.Profile profile = memo.get(this.what, pro.details);
+                if (profile != null && profile.canApply(inv, l, src)) {
+                    return this.craftFromProfile(profile, inv, l, src);
+                }
+            }
+
+            final long requested = l;
+            CraftingPlanMemo.Crafts before = null;
+            IItemList<IAEItemStack> recording = null;
+            if (memo != null && !memo.contains(this.what, pro.details)) {
+                before = this.collectCrafts();
+                recording = inv.startRecording();
+            }
 
-            while (pro.possible && l > 0) {
-                final IAEItemStack madeWhat = pro.getAmountCrafted(this.what);
+            IAEItemStack result = null;
+            try {
+                while (pro.possible && l > 0) {
+                    final IAEItemStack madeWhat = pro.getAmountCrafted(this.what);
 
-                pro.request(inv, pro.getTimes(l, madeWhat.getStackSize()), src);
+                    pro.request(inv, pro.getTimes(l, madeWhat.getStackSize()), src);
 
-                madeWhat.setStackSize(l);
+                    madeWhat.setStackSize(l);
 
-                final IAEItemStack available = inv.extractItems(madeWhat, Actionable.MODULATE, src);
+                    final IAEItemStack available = inv.extractItems(madeWhat, Actionable.MODULATE, src);
 
-                if (available != null) {
-                    this.bytes += available.getStackSize();
-                    l -= available.getStackSize();
+                    if (available != null) {
+                        this.bytes += available.getStackSize();
+                        l -= available.getStackSize();
 
-                    if (l <= 0) {
-                        return available;
+                        if (l <= 0) {
+                            result = available;
+                            break;
+                        }
+                    } else {
+                        pro.possible = false; // ;P
                     }
-                } else {
-                    pro.possible = false; // ;P
                 }
+            } finally {
+                if (recording != null) {
+                    inv.stopRecording(recording);
+                }
+            }
+
+            if (result != null) {
+                if (recording != null) {
+                    memo.record(this.what, pro.details, requested, result, recording,
+                            this.collectCrafts().since(before));
+                }
+                return result;
             }
         } else if (this.nodes.size() > 1) {
             for (final CraftingTreeProcess pro : this.nodes) {
@@ -267,6 +334,46 @@ IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource
         throw new CraftBranchFailure(this.what, l);
     }
 
+    /**
+     * Plans the crafting of this item by applying a profile recorded for an earlier occurrence of it.
+     */
+    private IAEItemStack craftFromProfile(final CraftingPlanMemo.Profile profile, final MECraftingInventory inv,
+            final long l, final IActionSource src) throws CraftBranchFailure {
+        if (this.reusedCrafts == null) {
+            this.reusedCrafts = new CraftingPlanMemo.Crafts();
+        }
+
+        for (final IAEItemStack consumed : profile.apply(inv, l, this.reusedCrafts, src)) {
+            final IAEItemStack is = this.job.checkUse(consumed);
+            if (is != null) {
+                this.used.add(is);
+            }
+        }
+
+        this.job.onPlanReused();
+        return profile.createResult(l);
+    }
+
+    private CraftingPlanMemo.Crafts collectCrafts() {
+        final CraftingPlanMemo.Crafts crafts = new CraftingPlanMemo.Crafts();
+        this.collectCrafts(crafts);
+        return crafts;
+    }
+
+    void collectCrafts(final CraftingPlanMemo.Crafts crafts) {
+        crafts.addMissing(this.missing);
+        crafts.addEmitted(this.howManyEmitted);
+        crafts.addBytes(8 + this.bytes);
+
+        if (this.reusedCrafts != null) {
+            crafts.addAll(this.reusedCrafts, 1);
+        }
+
+        for (final CraftingTreeProcess pro : this.nodes) {
+            pro.collectCrafts(crafts);
+        }
+    }
+
     void dive(final CraftingJob job) {
         if (this.missing > 0) {
             job.addMissing(this.getStack(this.missing));
@@ -275,6 +382,11 @@ void dive(final CraftingJob job) {
 
         job.addBytes(8 + this.bytes);
 
+        if (this.reusedCrafts != null) {
+            this.reusedCrafts.dive(job, this.depth + 1);
+            job.addBytes(this.reusedCrafts.getBytes());
+        }
+
         for (final CraftingTreeProcess pro : this.nodes) {
             pro.dive(job);
         }
@@ -292,6 +404,7 @@ void setSimulate() {
         this.bytes = 0;
         this.used.resetStatus();
         this.exhausted = false;
+        this.reusedCrafts = null;
 
         for (final CraftingTreeProcess pro : this.nodes) {
             pro.setSimulate();
@@ -316,6 +429,10 @@ public void setJob(final MECraftingInventory storage, final CraftingCPUCluster c
             craftingCPUCluster.addEmitable(i);
         }
 
+        if (this.reusedCrafts != null) {
+            this.reusedCrafts.setJob(craftingCPUCluster);
+        }
+
         for (final CraftingTreeProcess pro : this.nodes) {
             pro.setJob(storage, craftingCPUCluster, src);
         }
@@ -338,6 +455,10 @@ void getPlan(final IItemList<IAEItemStack> plan) {
             plan.add(i.copy());
         }
 
+        if (this.reusedCrafts != null) {
+            this.reusedCrafts.getPlan(plan);
+        }
+
         for (final CraftingTreeProcess pro : this.nodes) {
             pro.getPlan(plan);
         }
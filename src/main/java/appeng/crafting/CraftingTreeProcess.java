@@ -221,6 +221,17 @@ void dive(final CraftingJob job) {
         job.addBytes(8 + this.crafts + this.bytes);
     }
 
+    void collectCrafts(final CraftingPlanMemo.Crafts crafts) {
+        if (this.crafts != 0) {
+            crafts.addCrafts(this.details, this.getAmountCrafted(this.parent.getStack(1)), this.crafts);
+        }
+        crafts.addBytes(8 + this.crafts + this.bytes);
+
+        for (final CraftingTreeNode pro : this.nodes.keySet()) {
+            pro.collectCrafts(crafts);
+        }
+    }
+
     IAEItemStack getAmountCrafted(IAEItemStack what2) {
         for (final IAEItemStack is : this.details.getOutputs()) {
             if (is.equals(what2)) {
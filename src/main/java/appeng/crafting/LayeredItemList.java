@@ -0,0 +1,206 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.StorageChannels;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.service.StorageSnapshot;
+import appeng.util.inv.ItemListIgnoreCrafting;
+
+/**
+ * An item list that starts out with the content of another list or a {@link StorageSnapshot} without copying it.
+ * Entries of the base list are only copied into this list when they are first accessed, after which all changes are
+ * applied to the copy. The base list is never modified and must not change while this list is in use.
+ */
+class LayeredItemList implements IItemList<IAEItemStack> {
+
+    private final Base base;
+    private final IItemList<IAEItemStack> overlay = new ItemListIgnoreCrafting<>(StorageChannels.items().createList());
+
+    /**
+     * Item types that have already been copied from the base list, or were not contained in it.
+     */
+    private final Set<IAEItemStack> copied = new HashSet<>();
+    private boolean copiedAll;
+
+    LayeredItemList(final IItemList<IAEItemStack> base) {
+        this.base = new Base() {
+            @Override
+            public IAEItemStack findPrecise(final IAEItemStack what) {
+                return base.findPrecise(what);
+            }
+
+            @Override
+            public Collection<IAEItemStack> findFuzzy(final IAEItemStack input, final FuzzyMode fuzzy) {
+                return base.findFuzzy(input, fuzzy);
+            }
+
+            @Override
+            public Iterator<IAEItemStack> iterator() {
+                return base.iterator();
+            }
+        };
+    }
+
+    LayeredItemList(final StorageSnapshot<IAEItemStack> base) {
+        this.base = new Base() {
+            @Override
+            public IAEItemStack findPrecise(final IAEItemStack what) {
+                return base.findPrecise(what);
+            }
+
+            @Override
+            public Collection<IAEItemStack> findFuzzy(final IAEItemStack input, final FuzzyMode fuzzy) {
+                return base.findFuzzy(input, fuzzy);
+            }
+
+            @Override
+            public Iterator<IAEItemStack> iterator() {
+                return base.iterator();
+            }
+        };
+    }
+
+    private void copyFromBase(final IAEItemStack what) {
+        if (!this.copiedAll && this.copied.add(what.copy())) {
+            this.copyEntry(this.base.findPrecise(what));
+        }
+    }
+
+    private void copyAllFromBase() {
+        if (this.copiedAll) {
+            return;
+        }
+
+        for (final IAEItemStack entry : this.base) {
+            if (this.copied.add(entry.copy())) {
+                this.copyEntry(entry);
+            }
+        }
+
+        this.copiedAll = true;
+        this.copied.clear();
+    }
+
+    private void copyEntry(final IAEItemStack entry) {
+        if (entry != null && entry.getStackSize() > 0) {
+            final IAEItemStack copy = entry.copy().reset();
+            copy.setStackSize(entry.getStackSize());
+            this.overlay.add(copy);
+        }
+    }
+
+    @Override
+    public void add(final IAEItemStack option) {
+        if (option != null) {
+            this.copyFromBase(option);
+            this.overlay.add(option);
+        }
+    }
+
+    @Override
+    public IAEItemStack findPrecise(final IAEItemStack i) {
+        if (i == null) {
+            return null;
+        }
+
+        this.copyFromBase(i);
+        return this.overlay.findPrecise(i);
+    }
+
+    @Override
+    public Collection<IAEItemStack> findFuzzy(final IAEItemStack input, final FuzzyMode fuzzy) {
+        if (!this.copiedAll && input != null) {
+            for (final IAEItemStack entry : this.base.findFuzzy(input, fuzzy)) {
+                if (this.copied.add(entry.copy())) {
+                    this.copyEntry(entry);
+                }
+            }
+        }
+
+        return this.overlay.findFuzzy(input, fuzzy);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        this.copyAllFromBase();
+        return this.overlay.isEmpty();
+    }
+
+    @Override
+    public void addStorage(final IAEItemStack option) {
+        if (option != null) {
+            this.copyFromBase(option);
+            this.overlay.addStorage(option);
+        }
+    }
+
+    @Override
+    public void addCrafting(final IAEItemStack option) {
+        // nothing.
+    }
+
+    @Override
+    public void addRequestable(final IAEItemStack option) {
+        if (option != null) {
+            this.copyFromBase(option);
+            this.overlay.addRequestable(option);
+        }
+    }
+
+    @Override
+    public IAEItemStack getFirstItem() {
+        this.copyAllFromBase();
+        return this.overlay.getFirstItem();
+    }
+
+    @Override
+    public int size() {
+        this.copyAllFromBase();
+        return this.overlay.size();
+    }
+
+    @Override
+    public Iterator<IAEItemStack> iterator() {
+        this.copyAllFromBase();
+        return this.overlay.iterator();
+    }
+
+    @Override
+    public void resetStatus() {
+        this.copyAllFromBase();
+        this.overlay.resetStatus();
+    }
+
+    /**
+     * The read operations this list needs from the list it is based on.
+     */
+    private interface Base extends Iterable<IAEItemStack> {
+        IAEItemStack findPrecise(IAEItemStack what);
+
+        Collection<IAEItemStack> findFuzzy(IAEItemStack input, FuzzyMode fuzzy);
+    }
+}
@@ -18,6 +18,11 @@
 
 package appeng.crafting;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
 import appeng.api.config.Actionable;
 import appeng.api.networking.security.IActionSource;
 import appeng.api.storage.IMEInventory;
@@ -26,6 +31,9 @@
 import appeng.api.storage.StorageChannels;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
+import appeng.me.service.NetworkMonitor;
+import appeng.me.service.StorageSnapshot;
 import appeng.util.inv.ItemListIgnoreCrafting;
 
 public class MECraftingInventory implements IMEInventory<IAEItemStack> {
@@ -34,6 +42,8 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack> {
 
     private final IMEInventory<IAEItemStack> target;
     private final IItemList<IAEItemStack> localCache;
+    @Nullable
+    private final StorageSnapshot<IAEItemStack> snapshot;
 
     private final boolean logExtracted;
     private final IItemList<IAEItemStack> extractedCache;
@@ -44,6 +54,11 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack> {
     private final boolean logMissing;
     private final IItemList<IAEItemStack> missingCache;
 
+    /**
+     * The net changes of this inventory for every recording that is currently active.
+     */
+    private final List<IItemList<IAEItemStack>> recordings = new ArrayList<>(2);
+
     public MECraftingInventory() {
         this.localCache = new ItemListIgnoreCrafting<>(StorageChannels.items().createList());
         this.extractedCache = null;
@@ -54,13 +69,29 @@ public MECraftingInventory() {
         this.logMissing = false;
         this.target = null;
         this.par = null;
+        this.snapshot = null;
     }
 
     public MECraftingInventory(final MECraftingInventory parent) {
+        this(parent, parent.logExtracted, parent.logInjections, parent.logMissing, parent);
+    }
+
+    /**
+     * Creates an inventory on top of the given one, using its content without copying it when storage snapshots are
+     * enabled. Unlike {@link #MECraftingInventory(MECraftingInventory)}, missing items are not passed on to the parent
+     * when this inventory is committed.
+     */
+    public MECraftingInventory(final MECraftingInventory parent, final boolean logExtracted,
+            final boolean logInjections, final boolean logMissing) {
+        this(parent, logExtracted, logInjections, logMissing, null);
+    }
+
+    private MECraftingInventory(final MECraftingInventory parent, final boolean logExtracted,
+            final boolean logInjections, final boolean logMissing, @Nullable final MECraftingInventory par) {
         this.target = parent;
-        this.logExtracted = parent.logExtracted;
-        this.logInjections = parent.logInjections;
-        this.logMissing = parent.logMissing;
+        this.logExtracted = logExtracted;
+        this.logInjections = logInjections;
+        this.logMissing = logMissing;
 
         if (this.logMissing) {
             this.missingCache = StorageChannels.items().createList();
@@ -80,14 +111,25 @@ public MECraftingInventory(final MECraftingInventory parent) {
             this.injectedCache = null;
         }
 
-        this.localCache = this.target.getAvailableItems(new ItemListIgnoreCrafting<>(
-                StorageChannels.items().createList()));
+        if (AEConfig.instance().isCraftingStorageSnapshots()) {
+            // The parent does not change until this inventory is committed to it
+            this.localCache = new LayeredItemList(parent.localCache);
+        } else {
+            this.localCache = this.target.getAvailableItems(new ItemListIgnoreCrafting<>(
+                    StorageChannels.items().createList()));
+        }
 
-        this.par = parent;
+        this.par = par;
+        this.snapshot = null;
     }
 
+    /**
+     * @param allowSnapshot True if the network storage may be read through a snapshot. Snapshots read the live storage
+     *                      list and must only be used on the server thread.
+     */
     public MECraftingInventory(final IMEMonitor<IAEItemStack> target, final IActionSource src,
-            final boolean logExtracted, final boolean logInjections, final boolean logMissing) {
+            final boolean logExtracted, final boolean logInjections, final boolean logMissing,
+            final boolean allowSnapshot) {
         this.target = target;
         this.logExtracted = logExtracted;
         this.logInjections = logInjections;
@@ -111,9 +153,20 @@ public MECraftingInventory(final IMEMonitor<IAEItemStack> target, final IActionS
             this.injectedCache = null;
         }
 
-        this.localCache = new ItemListIgnoreCrafting<>(StorageChannels.items().createList());
-        for (final IAEItemStack is : target.getStorageList()) {
-            this.localCache.add(target.extractItems(is, Actionable.SIMULATE, src));
+        if (allowSnapshot && AEConfig.instance().isCraftingStorageSnapshots()
+                && target instanceof NetworkMonitor<IAEItemStack> monitor) {
+            this.snapshot = monitor.createSnapshot(src);
+            if (this.snapshot != null) {
+                this.localCache = new LayeredItemList(this.snapshot);
+            } else {
+                this.localCache = new ItemListIgnoreCrafting<>(StorageChannels.items().createList());
+            }
+        } else {
+            this.snapshot = null;
+            this.localCache = new ItemListIgnoreCrafting<>(StorageChannels.items().createList());
+            for (final IAEItemStack is : target.getStorageList()) {
+                this.localCache.add(target.extractItems(is, Actionable.SIMULATE, src));
+            }
         }
 
         this.par = null;
@@ -146,6 +199,7 @@ public MECraftingInventory(final IMEInventory<IAEItemStack> target, final boolea
 
         this.localCache = target.getAvailableItems();
         this.par = null;
+        this.snapshot = null;
     }
 
     @Override
@@ -159,6 +213,7 @@ public IAEItemStack injectItems(final IAEItemStack input, final Actionable mode,
                 this.injectedCache.add(input);
             }
             this.localCache.add(input);
+            this.record(input, 1);
         }
 
         return null;
@@ -181,6 +236,7 @@ public IAEItemStack extractItems(final IAEItemStack request, final Actionable mo
                 if (this.logExtracted) {
                     this.extractedCache.add(request);
                 }
+                this.record(request, -1);
             }
 
             return request;
@@ -194,6 +250,7 @@ public IAEItemStack extractItems(final IAEItemStack request, final Actionable mo
             if (this.logExtracted) {
                 this.extractedCache.add(ret);
             }
+            this.record(ret, -1);
         }
 
         return ret;
@@ -277,6 +334,38 @@ public boolean commit(final IActionSource src) {
         return true;
     }
 
+    /**
+     * Releases the storage snapshot this inventory was created from. The inventory and all inventories created from
+     * it must not be used afterwards.
+     */
+    void release() {
+        if (this.snapshot != null) {
+            this.snapshot.close();
+        }
+    }
+
+    /**
+     * Starts recording the net changes of this inventory into a new list, until it is passed to
+     * {@link #stopRecording(IItemList)}. Extracted items are recorded with a negative amount.
+     */
+    IItemList<IAEItemStack> startRecording() {
+        final IItemList<IAEItemStack> recording = StorageChannels.items().createList();
+        this.recordings.add(recording);
+        return recording;
+    }
+
+    void stopRecording(final IItemList<IAEItemStack> recording) {
+        this.recordings.remove(recording);
+    }
+
+    private void record(final IAEItemStack stack, final int sign) {
+        for (final IItemList<IAEItemStack> recording : this.recordings) {
+            final IAEItemStack change = stack.copy();
+            change.setStackSize(sign * stack.getStackSize());
+            recording.add(change);
+        }
+    }
+
     private void addMissing(final IAEItemStack extra) {
         this.missingCache.add(extra);
     }
@@ -789,9 +789,19 @@ private void storeItems() {
                 .getInventory(StorageChannels.items());
 
         IItemList<IAEItemStack> itemList = this.inventory.getItemList();
+        final List<IAEItemStack> stored = new ArrayList<>();
+        final List<IAEItemStack> toInject = new ArrayList<>();
         for (IAEItemStack is : itemList) {
             this.postChange(is, this.machineSrc);
-            IAEItemStack remainder = ii.injectItems(is.copy(), Actionable.MODULATE, this.machineSrc);
+            stored.add(is);
+            toInject.add(is.copy());
+        }
+
+        // Return everything in one batch, so the network has to be entered only once
+        final List<IAEItemStack> remainders = ii.injectMultiple(toInject, Actionable.MODULATE, this.machineSrc);
+        for (int i = 0; i < stored.size(); i++) {
+            final IAEItemStack is = stored.get(i);
+            final IAEItemStack remainder = remainders.get(i);
 
             // The network was unable to receive all of the items, i.e. no or not enough storage space left
             if (remainder != null) {
@@ -23,8 +23,10 @@
 
 package appeng.me.helpers;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
 
 import com.google.common.collect.ImmutableList;
@@ -81,6 +83,24 @@ public T injectItems(final T input, final Actionable mode, final IActionSource s
         return this.monitorDifference(input.copy(), this.getHandler().injectItems(input, mode, src), false, src);
     }
 
+    @Override
+    public List<T> injectMultiple(final List<T> inputs, final Actionable mode, final IActionSource src) {
+        if (mode == Actionable.SIMULATE) {
+            return this.getHandler().injectMultiple(inputs, mode, src);
+        }
+        final List<T> originals = copyAll(inputs);
+        return this.monitorDifferences(originals, this.getHandler().injectMultiple(inputs, mode, src), false, src);
+    }
+
+    @Override
+    public List<T> extractMultiple(final List<T> requests, final Actionable mode, final IActionSource src) {
+        if (mode == Actionable.SIMULATE) {
+            return this.getHandler().extractMultiple(requests, mode, src);
+        }
+        final List<T> originals = copyAll(requests);
+        return this.monitorDifferences(originals, this.getHandler().extractMultiple(requests, mode, src), true, src);
+    }
+
     protected IMEInventoryHandler<T> getHandler() {
         return this.internalHandler;
     }
@@ -102,6 +122,46 @@ private T monitorDifference(final T original, final T leftOvers, final boolean e
         return leftOvers;
     }
 
+    /**
+     * Posts the differences of a batch operation to the listeners at once.
+     */
+    private List<T> monitorDifferences(final List<T> originals, final List<T> results, final boolean extraction,
+            final IActionSource src) {
+        final List<T> changes = new ArrayList<>(originals.size());
+        for (int i = 0; i < originals.size(); i++) {
+            final T original = originals.get(i);
+            if (original == null) {
+                continue;
+            }
+
+            final T leftOvers = results.get(i);
+            final T diff = original.copy();
+            if (extraction) {
+                diff.setStackSize(leftOvers == null ? 0 : -leftOvers.getStackSize());
+            } else if (leftOvers != null) {
+                diff.decStackSize(leftOvers.getStackSize());
+            }
+
+            if (diff.getStackSize() != 0) {
+                changes.add(diff);
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            this.postChangesToListeners(changes, src);
+        }
+
+        return results;
+    }
+
+    private static <T extends IAEStack<T>> List<T> copyAll(final List<T> stacks) {
+        final List<T> copies = new ArrayList<>(stacks.size());
+        for (final T stack : stacks) {
+            copies.add(stack != null ? stack.copy() : null);
+        }
+        return copies;
+    }
+
     protected void postChangesToListeners(final Iterable<T> changes, final IActionSource src) {
         this.notifyListenersOfChange(changes, src);
     }
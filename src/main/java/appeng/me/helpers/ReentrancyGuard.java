@@ -0,0 +1,178 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import it.unimi.dsi.fastutil.objects.Reference2BooleanMap;
+import it.unimi.dsi.fastutil.objects.Reference2BooleanOpenHashMap;
+
+import appeng.core.AEConfig;
+import appeng.core.AELog;
+
+/**
+ * Detects recursive calls into the networked storage API, i.e. a network that is reached again through a storage bus
+ * while it is still processing the same operation.
+ * <p/>
+ * Each participant of a guard (i.e. a network inventory) owns an {@link Entry}. Every thread keeps its own map of the
+ * entries it entered since its outermost call started, and whether they are still being processed. Checking for
+ * recursion is a single lookup in that map, without searching or allocating a call stack. The map is cleared when the
+ * outermost call returns, and again when the thread enters the guard at depth zero to drop entries left behind by an
+ * aborted call. Entries are immutable and can be shared between threads, i.e. crafting calculations and the server
+ * thread.
+ * <p/>
+ * If storage recursion tracing is enabled in the config, the guard additionally keeps the full call path, which is
+ * logged whenever a cycle is detected.
+ */
+public final class ReentrancyGuard {
+
+    private final String name;
+    private final BooleanSupplier traceEnabled;
+    private final ThreadLocal<CallState> state = ThreadLocal.withInitial(CallState::new);
+
+    public ReentrancyGuard(String name) {
+        this(name, () -> AEConfig.instance().isStorageRecursionTrace());
+    }
+
+    ReentrancyGuard(String name, BooleanSupplier traceEnabled) {
+        this.name = name;
+        this.traceEnabled = traceEnabled;
+    }
+
+    /**
+     * Enters the guard for the given entry.
+     *
+     * @return False if the entry is already being processed further up in the current call, in which case the guard
+     *         has not been entered and {@link #exit(Entry)} must not be called.
+     */
+    public boolean enter(Entry entry) {
+        final CallState s = this.begin();
+        if (s.entries.getBoolean(entry)) {
+            this.onCycle(s, entry);
+            return false;
+        }
+
+        this.push(s, entry);
+        return true;
+    }
+
+    /**
+     * Enters the guard for the given entry, unless the entry has already been entered at any point since the outermost
+     * call started. This is used for operations that must visit each participant only once, such as listing the
+     * content of all networks reachable from a network.
+     *
+     * @return False if the entry has already been visited, in which case the guard has not been entered and
+     *         {@link #exit(Entry)} must not be called.
+     */
+    public boolean enterOnce(Entry entry) {
+        final CallState s = this.begin();
+        if (s.entries.containsKey(entry)) {
+            if (s.entries.getBoolean(entry)) {
+                this.onCycle(s, entry);
+            }
+            return false;
+        }
+
+        this.push(s, entry);
+        return true;
+    }
+
+    /**
+     * Leaves the guard for an entry that was successfully entered.
+     */
+    public void exit(Entry entry) {
+        final CallState s = this.state.get();
+        if (s.depth <= 0 || !s.entries.getBoolean(entry)) {
+            throw new IllegalStateException("Invalid Access to Networked Storage API detected.");
+        }
+
+        // The entry stays in the map, so it is still known as visited until the outermost call returns
+        s.entries.put(entry, false);
+        s.depth--;
+
+        if (s.path != null) {
+            final Entry last = s.path.remove(s.path.size() - 1);
+            if (last != entry) {
+                throw new IllegalStateException("Invalid Access to Networked Storage API detected.");
+            }
+        }
+
+        if (s.depth == 0) {
+            s.entries.clear();
+        }
+    }
+
+    private CallState begin() {
+        final CallState s = this.state.get();
+        if (s.depth == 0) {
+            if (!s.entries.isEmpty()) {
+                s.entries.clear();
+            }
+            s.path = this.traceEnabled.getAsBoolean() ? new ArrayList<>() : null;
+        }
+        return s;
+    }
+
+    private void push(CallState s, Entry entry) {
+        s.entries.put(entry, true);
+        s.depth++;
+
+        if (s.path != null) {
+            s.path.add(entry);
+        }
+    }
+
+    private void onCycle(CallState s, Entry entry) {
+        if (s.path != null) {
+            final StringBuilder path = new StringBuilder();
+            for (Entry e : s.path) {
+                path.append(e).append(" -> ");
+            }
+            path.append(entry);
+            AELog.info("Recursive %s detected: %s", this.name, path);
+        }
+    }
+
+    private static class CallState {
+        private final Reference2BooleanMap<Entry> entries = new Reference2BooleanOpenHashMap<>();
+        private int depth;
+        private List<Entry> path;
+    }
+
+    /**
+     * Identifies a single participant of a guard. The state of the participant is kept by each thread that enters it.
+     */
+    public static final class Entry {
+
+        private final Object owner;
+
+        public Entry(Object owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(this.owner);
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.helpers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEFluidStack;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+
+/**
+ * Keeps track of the stacks that watchers are interested in, indexed by the item (or fluid) of the stacks. Looking up
+ * the watchers of a changed stack costs a single reference lookup if no watcher is interested in its item.
+ * <p/>
+ * In addition to precise interests, watchers can register fuzzy interests, which match all stacks of the same item
+ * that are equal with regard to a {@link FuzzyMode}.
+ * <p/>
+ * Like {@link GenericInterestManager}, changes made while transactions are enabled are applied once the outermost
+ * transaction ends, so watchers can change their interests while they are being notified.
+ */
+public class StackInterestManager<T> {
+
+    private final Reference2ObjectMap<Object, Interests<T>> interests = new Reference2ObjectOpenHashMap<>();
+    private List<SavedTransaction<T>> transactions = null;
+    private int transDepth = 0;
+
+    public void enableTransactions() {
+        if (this.transDepth == 0) {
+            this.transactions = new ArrayList<>();
+        }
+
+        this.transDepth++;
+    }
+
+    public void disableTransactions() {
+        this.transDepth--;
+
+        if (this.transDepth == 0) {
+            final List<SavedTransaction<T>> myActions = this.transactions;
+            this.transactions = null;
+
+            for (final SavedTransaction<T> t : myActions) {
+                if (t.put) {
+                    this.put(t.stack, t.fuzzy, t.watcher);
+                } else {
+                    this.remove(t.stack, t.fuzzy, t.watcher);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers an interest of the watcher.
+     *
+     * @param fuzzy The fuzzy mode to match stacks with, or null to match the stack precisely.
+     */
+    public boolean put(final IAEStack stack, @Nullable final FuzzyMode fuzzy, final T watcher) {
+        if (this.transactions != null) {
+            this.transactions.add(new SavedTransaction<>(true, stack, fuzzy, watcher));
+            return true;
+        }
+
+        return this.interests.computeIfAbsent(getIndexKey(stack), k -> new Interests<>()).add(stack, fuzzy, watcher);
+    }
+
+    public boolean remove(final IAEStack stack, @Nullable final FuzzyMode fuzzy, final T watcher) {
+        if (this.transactions != null) {
+            this.transactions.add(new SavedTransaction<>(false, stack, fuzzy, watcher));
+            return true;
+        }
+
+        final Object key = getIndexKey(stack);
+        final Interests<T> itemInterests = this.interests.get(key);
+        if (itemInterests == null || !itemInterests.remove(stack, fuzzy, watcher)) {
+            return false;
+        }
+
+        if (itemInterests.isEmpty()) {
+            this.interests.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * @return The watchers with a precise or fuzzy interest matching the given stack.
+     */
+    public Collection<T> get(final IAEStack stack) {
+        final Interests<T> itemInterests = this.interests.get(getIndexKey(stack));
+        return itemInterests != null ? itemInterests.get(stack) : Collections.emptyList();
+    }
+
+    /**
+     * Interests are grouped by the item or fluid of the stack. Stacks of other storage channels are grouped by channel.
+     */
+    private static Object getIndexKey(final IAEStack stack) {
+        if (stack instanceof IAEItemStack itemStack) {
+            return itemStack.getItem();
+        } else if (stack instanceof IAEFluidStack fluidStack) {
+            return fluidStack.getFluid();
+        }
+        return stack.getChannel();
+    }
+
+    /**
+     * Uses the same rules as the fuzzy search of item lists, which ignore all differences between variants of items
+     * that cannot be damaged.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean matchesFuzzy(final IAEStack stack, final IAEStack filter, final FuzzyMode fuzzy) {
+        if (stack instanceof IAEItemStack itemStack && !itemStack.getItem().canBeDepleted()) {
+            return true;
+        }
+        return stack.fuzzyComparison(filter, fuzzy);
+    }
+
+    /**
+     * The interests in the stacks of a single item.
+     */
+    private static class Interests<T> {
+
+        private final Map<IAEStack, Set<T>> precise = new HashMap<>();
+        private final List<FuzzyInterest<T>> fuzzy = new ArrayList<>();
+
+        boolean add(final IAEStack stack, @Nullable final FuzzyMode fuzzyMode, final T watcher) {
+            if (fuzzyMode == null) {
+                return this.precise.computeIfAbsent(stack, k -> new LinkedHashSet<>()).add(watcher);
+            }
+
+            final FuzzyInterest<T> interest = new FuzzyInterest<>(stack, fuzzyMode, watcher);
+            if (this.fuzzy.contains(interest)) {
+                return false;
+            }
+            return this.fuzzy.add(interest);
+        }
+
+        boolean remove(final IAEStack stack, @Nullable final FuzzyMode fuzzyMode, final T watcher) {
+            if (fuzzyMode != null) {
+                return this.fuzzy.remove(new FuzzyInterest<>(stack, fuzzyMode, watcher));
+            }
+
+            final Set<T> watchers = this.precise.get(stack);
+            if (watchers == null || !watchers.remove(watcher)) {
+                return false;
+            }
+            if (watchers.isEmpty()) {
+                this.precise.remove(stack);
+            }
+            return true;
+        }
+
+        boolean isEmpty() {
+            return this.precise.isEmpty() && this.fuzzy.isEmpty();
+        }
+
+        Collection<T> get(final IAEStack stack) {
+            final Set<T> watchers = this.precise.getOrDefault(stack, Collections.emptySet());
+            if (this.fuzzy.isEmpty()) {
+                return watchers;
+            }
+
+            final Set<T> result = new LinkedHashSet<>(watchers);
+            for (final FuzzyInterest<T> interest : this.fuzzy) {
+                if (matchesFuzzy(stack, interest.stack(), interest.mode())) {
+                    result.add(interest.watcher());
+                }
+            }
+            return result;
+        }
+    }
+
+    private record FuzzyInterest<T>(IAEStack stack, FuzzyMode mode, T watcher) {
+    }
+
+    private record SavedTransaction<T>(boolean put, IAEStack stack, @Nullable FuzzyMode fuzzy, T watcher) {
+    }
+}
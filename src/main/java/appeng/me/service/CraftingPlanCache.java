@@ -0,0 +1,151 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import appeng.api.config.Actionable;
+import appeng.api.networking.crafting.ICraftingJob;
+import appeng.api.networking.security.IActionSource;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.StorageChannels;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+/**
+ * Remembers the crafting calculations that machines of a grid started recently. Export buses, interfaces and level
+ * emitters request the same amount of the same item over and over, usually because no crafting CPU was free when the
+ * previous calculation finished, and get the completed plan instead of a new calculation.
+ * <p/>
+ * A plan stays valid while the patterns of the grid are unchanged and the grid still stores every item the plan takes
+ * from storage. The {@link CraftingService} clears the cache whenever its patterns change, and the stored items are
+ * checked every time a plan is reused.
+ */
+public final class CraftingPlanCache {
+
+    private static final int MAX_PLANS = 32;
+
+    private static final LongAdder REQUESTS = new LongAdder();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder INVALIDATIONS = new LongAdder();
+
+    private final Map<Key, Future<ICraftingJob>> plans = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Future<ICraftingJob>> eldest) {
+            return this.size() > MAX_PLANS;
+        }
+    };
+
+    /**
+     * @return A completed calculation for the given amount of the item whose plan can still be submitted, or null if
+     *         the item has to be calculated again.
+     */
+    @Nullable
+    Future<ICraftingJob> get(final IAEItemStack what, final IMEInventory<IAEItemStack> storage,
+            final IActionSource src) {
+        REQUESTS.increment();
+
+        final Key key = new Key(what);
+        final Future<ICraftingJob> future = this.plans.get(key);
+        if (future == null || !future.isDone()) {
+            return null;
+        }
+
+        final ICraftingJob job;
+        try {
+            job = future.get();
+        } catch (final InterruptedException | ExecutionException | CancellationException e) {
+            this.plans.remove(key);
+            return null;
+        }
+
+        if (job == null || job.isSimulation() || !isStored(job, storage, src)) {
+            this.plans.remove(key);
+            INVALIDATIONS.increment();
+            return null;
+        }
+
+        HITS.increment();
+        return CompletableFuture.completedFuture(job);
+    }
+
+    void put(final IAEItemStack what, final Future<ICraftingJob> future) {
+        this.plans.put(new Key(what), future);
+    }
+
+    void clear() {
+        this.plans.clear();
+    }
+
+    private static boolean isStored(final ICraftingJob job, final IMEInventory<IAEItemStack> storage,
+            final IActionSource src) {
+        final IItemList<IAEItemStack> plan = StorageChannels.items().createList();
+        job.populatePlan(plan);
+
+        for (final IAEItemStack needed : plan) {
+            if (needed.getStackSize() > 0) {
+                final IAEItemStack available = storage.extractItems(needed.copy(), Actionable.SIMULATE, src);
+                if (available == null || available.getStackSize() < needed.getStackSize()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The number of calculations machines requested while the cache was enabled, since the game started.
+     */
+    public static long getRequests() {
+        return REQUESTS.sum();
+    }
+
+    /**
+     * @return The number of requested calculations that were answered with a completed plan.
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return The number of completed plans that were dropped because the grid no longer stores their ingredients.
+     */
+    public static long getInvalidations() {
+        return INVALIDATIONS.sum();
+    }
+
+    /**
+     * Item stacks are equal regardless of their amount, so the amount is part of the key.
+     */
+    private record Key(IAEItemStack what, long amount) {
+        private Key(final IAEItemStack what) {
+            this(what.copy(), what.getStackSize());
+        }
+    }
+
+}
@@ -39,9 +39,12 @@
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 
+import net.minecraft.world.item.Item;
 import net.minecraft.world.level.Level;
 
 import appeng.api.AEApi;
@@ -76,6 +79,7 @@
 import appeng.api.storage.data.IItemList;
 import appeng.blockentity.crafting.CraftingBlockEntity;
 import appeng.blockentity.crafting.CraftingStorageBlockEntity;
+import appeng.core.AEConfig;
 import appeng.crafting.CraftingJob;
 import appeng.crafting.CraftingLink;
 import appeng.crafting.CraftingLinkNexus;
@@ -89,19 +93,17 @@
         implements ICraftingService, IGridServiceProvider, ICraftingProviderHelper, ICellProvider,
         IMEInventoryHandler<IAEItemStack> {
 
-    private static final ExecutorService CRAFTING_POOL;
+    private static final ThreadFactory CRAFTING_THREAD_FACTORY = ar -> {
+        final Thread crafting = new Thread(ar, "AE Crafting Calculator");
+        crafting.setDaemon(true);
+        return crafting;
+    };
+    private static ExecutorService craftingPool;
+    private static boolean boundedCraftingPool;
     private static final Comparator<ICraftingPatternDetails> COMPARATOR = (firstDetail,
             nextDetail) -> nextDetail.getPriority() - firstDetail.getPriority();
 
     static {
-        final ThreadFactory factory = ar -> {
-            final Thread crafting = new Thread(ar, "AE Crafting Calculator");
-            crafting.setDaemon(true);
-            return crafting;
-        };
-
-        CRAFTING_POOL = Executors.newCachedThreadPool(factory);
-
         AEApi.grid().addGridServiceEventHandler(GridCraftingPatternChange.class, ICraftingService.class,
                 (service, event) -> {
                     ((CraftingService) service).updatePatterns();
@@ -117,8 +119,13 @@
     private final Map<IGridNode, ICraftingWatcher> craftingWatchers = new HashMap<>();
     private final IGrid grid;
     private final Map<ICraftingPatternDetails, List<ICraftingMedium>> craftingMethods = new HashMap<>();
-    private final Map<IAEItemStack, ImmutableList<ICraftingPatternDetails>> craftableItems = new HashMap<>();
-    private final Set<IAEItemStack> emitableItems = new HashSet<>();
+    /**
+     * Crafting calculations may read these on their own threads, so they are replaced instead of modified.
+     */
+    private volatile CraftableItems craftableItems = CraftableItems.EMPTY;
+    private volatile Set<IAEItemStack> emitableItems = new HashSet<>();
+    private final Set<IAEItemStack> pendingEmitableItems = new HashSet<>();
+    private final CraftingPlanCache planCache = new CraftingPlanCache();
     private final Map<String, CraftingLinkNexus> craftingLinks = new HashMap<>();
     private final Multimap<IAEStack, CraftingWatcher> interests = HashMultimap.create();
     private final GenericInterestManager<CraftingWatcher> interestManager = new GenericInterestManager<>(
@@ -208,22 +215,18 @@ public void addNode(IGridNode gridNode) {
     }
 
     private void updatePatterns() {
-        final Map<IAEItemStack, ImmutableList<ICraftingPatternDetails>> oldItems = this.craftableItems;
+        final CraftableItems oldItems = this.craftableItems;
 
         // erase list.
         this.craftingMethods.clear();
-        this.craftableItems.clear();
-        this.emitableItems.clear();
-
-        // update the stuff that was in the list...
-        this.storageGrid.postAlterationOfStoredItems(
-                StorageChannels.items(), oldItems.keySet(),
-                new BaseActionSource());
+        this.planCache.clear();
 
         // re-create list..
+        this.pendingEmitableItems.clear();
         for (final ICraftingProvider provider : this.craftingProviders) {
             provider.provideCrafting(this);
         }
+        final Set<IAEItemStack> emitable = new HashSet<>(this.pendingEmitableItems);
 
         final Map<IAEItemStack, Set<ICraftingPatternDetails>> tmpCraft = new HashMap<>();
 
@@ -241,12 +244,24 @@ private void updatePatterns() {
         }
 
         // make them immutable
+        final ImmutableMap.Builder<IAEItemStack, ImmutableList<ICraftingPatternDetails>> craftable = ImmutableMap
+                .builder();
+        final ImmutableListMultimap.Builder<Item, IAEItemStack> variants = ImmutableListMultimap.builder();
         for (final Entry<IAEItemStack, Set<ICraftingPatternDetails>> e : tmpCraft.entrySet()) {
-            this.craftableItems.put(e.getKey(), ImmutableList.copyOf(e.getValue()));
+            craftable.put(e.getKey(), ImmutableList.copyOf(e.getValue()));
+            variants.put(e.getKey().getItem(), e.getKey());
         }
+        // Calculations running on their own threads see either the old or the new lists, but never a partial rebuild
+        this.craftableItems = new CraftableItems(craftable.build(), variants.build());
+        this.emitableItems = emitable;
+
+        // update the stuff that was in the list...
+        this.storageGrid.postAlterationOfStoredItems(
+                StorageChannels.items(), oldItems.patterns().keySet(),
+                new BaseActionSource());
 
         this.storageGrid.postAlterationOfStoredItems(
-                StorageChannels.items(), this.craftableItems.keySet(),
+                StorageChannels.items(), this.craftableItems.patterns().keySet(),
                 new BaseActionSource());
     }
 
@@ -295,7 +310,7 @@ public void addCraftingOption(final ICraftingMedium medium, final ICraftingPatte
 
     @Override
     public void setEmitable(final IAEItemStack someItem) {
-        this.emitableItems.add(someItem.copy());
+        this.pendingEmitableItems.add(someItem.copy());
     }
 
     @Override
@@ -357,7 +372,7 @@ public IAEItemStack extractItems(final IAEItemStack request, final Actionable mo
     @Override
     public IItemList<IAEItemStack> getAvailableItems(final IItemList<IAEItemStack> out) {
         // add craftable items!
-        for (final IAEItemStack stack : this.craftableItems.keySet()) {
+        for (final IAEItemStack stack : this.craftableItems.patterns().keySet()) {
             out.addCrafting(stack);
         }
 
@@ -376,18 +391,18 @@ public IStorageChannel<IAEItemStack> getChannel() {
     @Override
     public ImmutableCollection<ICraftingPatternDetails> getCraftingFor(final IAEItemStack whatToCraft,
             final ICraftingPatternDetails details, final int slotIndex, final Level level) {
-        final ImmutableList<ICraftingPatternDetails> res = this.craftableItems.get(whatToCraft);
+        final CraftableItems craftable = this.craftableItems;
+        final ImmutableList<ICraftingPatternDetails> res = craftable.patterns().get(whatToCraft);
 
         if (res == null) {
             if (details != null && details.isCraftable()) {
-                for (final IAEItemStack ais : this.craftableItems.keySet()) {
+                for (final IAEItemStack ais : craftable.variants().get(whatToCraft.getItem())) {
                     // TODO: check if OK
                     // TODO: this is slightly hacky, but fine as long as we only deal with
                     // itemstacks
-                    if (ais.getItem() == whatToCraft.getItem()
-                            && (!ais.getItem().canBeDepleted() || ais.getItemDamage() == whatToCraft.getItemDamage())
+                    if ((!ais.getItem().canBeDepleted() || ais.getItemDamage() == whatToCraft.getItemDamage())
                             && details.isValidItemForSlot(slotIndex, ais.asItemStackRepresentation(), level)) {
-                        return this.craftableItems.get(ais);
+                        return craftable.patterns().get(ais);
                     }
                 }
             }
@@ -405,9 +420,40 @@ public Future<ICraftingJob> beginCraftingJob(final Level level, final IGrid grid
             throw new IllegalArgumentException("Invalid Crafting Job Request");
         }
 
-        final CraftingJob job = new CraftingJob(level, grid, actionSrc, slotItem, cb);
+        // Only machines repeat the same request, players usually want to review an up-to-date plan
+        final boolean cachePlan = AEConfig.instance().isCraftingPlanCache() && cb == null
+                && actionSrc.machine().isPresent() && actionSrc.player().isEmpty();
+        if (cachePlan) {
+            final IStorageService storage = grid.getService(IStorageService.class);
+            final Future<ICraftingJob> cached = this.planCache.get(slotItem,
+                    storage.getInventory(StorageChannels.items()), actionSrc);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final ExecutorService pool = getCraftingPool();
+        final CraftingJob job = new CraftingJob(level, grid, actionSrc, slotItem, cb, boundedCraftingPool);
+
+        final Future<ICraftingJob> future = pool.submit(job, job);
+        if (cachePlan) {
+            this.planCache.put(slotItem, future);
+        }
+        return future;
+    }
 
-        return CRAFTING_POOL.submit(job, job);
+    /**
+     * Calculations either share a fixed number of threads and run on their own, or each get a thread of their own that
+     * only runs in the time slices handed to it by the server thread.
+     */
+    private static synchronized ExecutorService getCraftingPool() {
+        if (craftingPool == null) {
+            final int threads = AEConfig.instance().getCraftingCalculationThreads();
+            boundedCraftingPool = threads > 0;
+            craftingPool = boundedCraftingPool ? Executors.newFixedThreadPool(threads, CRAFTING_THREAD_FACTORY)
+                    : Executors.newCachedThreadPool(CRAFTING_THREAD_FACTORY);
+        }
+        return craftingPool;
     }
 
     @Override
@@ -504,6 +550,18 @@ public GenericInterestManager<CraftingWatcher> getInterestManager() {
         return this.interestManager;
     }
 
+    /**
+     * The patterns of every craftable item, and the craftable items by their item to find craftable variants of an
+     * ingredient that has no pattern of its own. Both are published together so that readers never see them out of
+     * sync.
+     */
+    private record CraftableItems(ImmutableMap<IAEItemStack, ImmutableList<ICraftingPatternDetails>> patterns,
+            ImmutableListMultimap<Item, IAEItemStack> variants) {
+
+        private static final CraftableItems EMPTY = new CraftableItems(ImmutableMap.of(), ImmutableListMultimap.of());
+
+    }
+
     private static class ActiveCpuIterator implements Iterator<ICraftingCPU> {
 
         private final Iterator<CraftingCPUCluster> iterator;
@@ -0,0 +1,141 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.service;
+
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import it.unimi.dsi.fastutil.objects.Reference2LongMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+/**
+ * Running totals of the items stored in a grid, kept in sync with the cached storage list of the item
+ * {@link NetworkMonitor}. They allow level emitters to read the total amount of all items, or of all items matching a
+ * fuzzy filter, without iterating over the storage list.
+ * <p/>
+ * The totals are maintained from the exact changes posted to the monitor, whether or not the storage list itself is
+ * updated incrementally. They are only recomputed from scratch after changes of unknown origin were posted.
+ */
+public final class ItemStorageTotals {
+
+    private long total;
+
+    private final Reference2LongMap<Item> totalPerItem = new Reference2LongOpenHashMap<>();
+
+    /**
+     * For damageable items, the amount of items at or below the damage break point of each {@link FuzzyMode}, indexed
+     * by the ordinal of the mode.
+     */
+    private final Reference2ObjectMap<Item, long[]> undamagedPerItem = new Reference2ObjectOpenHashMap<>();
+
+    private boolean valid;
+
+    ItemStorageTotals() {
+    }
+
+    boolean isValid() {
+        return this.valid;
+    }
+
+    void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * Recomputes all totals from the given storage list.
+     */
+    void rebuild(final IItemList<IAEItemStack> storageList) {
+        this.total = 0;
+        this.totalPerItem.clear();
+        this.undamagedPerItem.clear();
+
+        for (final IAEItemStack stack : storageList) {
+            this.add(stack, stack.getStackSize());
+        }
+
+        this.valid = true;
+    }
+
+    /**
+     * Applies a change of the given amount to the stored amount of the given stack.
+     */
+    void add(final IAEItemStack stack, final long amount) {
+        if (amount == 0) {
+            return;
+        }
+
+        this.total += amount;
+
+        final Item item = stack.getItem();
+        final long itemTotal = this.totalPerItem.mergeLong(item, amount, Long::sum);
+        if (itemTotal < 0) {
+            // More was removed than was known to be stored, so the totals have to be recomputed
+            this.valid = false;
+            return;
+        }
+        if (itemTotal == 0) {
+            this.totalPerItem.removeLong(item);
+            this.undamagedPerItem.remove(item);
+            return;
+        }
+
+        if (item.canBeDepleted()) {
+            final ItemStack definition = stack.getDefinition();
+            final long[] undamaged = this.undamagedPerItem.computeIfAbsent(item,
+                    i -> new long[FuzzyMode.values().length]);
+            for (final FuzzyMode mode : FuzzyMode.values()) {
+                if (definition.getDamageValue() <= mode.calculateBreakPoint(definition.getMaxDamage())) {
+                    undamaged[mode.ordinal()] += amount;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The total amount of all items.
+     */
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * @return The total amount of all items matching the filter with the given fuzzy mode. This is the same as the sum
+     *         of the amounts found by a fuzzy search of the storage list.
+     */
+    public long getFuzzyTotal(final IAEItemStack filter, final FuzzyMode fuzzyMode) {
+        final Item item = filter.getItem();
+        final long itemTotal = this.totalPerItem.getLong(item);
+        if (fuzzyMode == FuzzyMode.IGNORE_ALL || !item.canBeDepleted() || itemTotal == 0) {
+            return itemTotal;
+        }
+
+        final long undamaged = this.undamagedPerItem.get(item)[fuzzyMode.ordinal()];
+        final ItemStack definition = filter.getDefinition();
+        if (definition.getDamageValue() <= fuzzyMode.calculateBreakPoint(definition.getMaxDamage())) {
+            return undamaged;
+        }
+        return itemTotal - undamaged;
+    }
+}
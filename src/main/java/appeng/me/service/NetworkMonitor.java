@@ -18,55 +18,90 @@
 
 package appeng.me.service;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Queues;
 
 import appeng.api.config.AccessRestriction;
 import appeng.api.config.Actionable;
+import appeng.api.config.SecurityPermissions;
 import appeng.api.networking.events.GridStorageEvent;
 import appeng.api.networking.security.IActionSource;
 import appeng.api.storage.IMEInventoryHandler;
 import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.IMEMonitorHandlerReceiver;
 import appeng.api.storage.IStorageChannel;
+import appeng.api.storage.StorageChannels;
+import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
+import appeng.me.helpers.BaseActionSource;
+import appeng.me.helpers.ReentrancyGuard;
 import appeng.me.storage.ItemWatcher;
+import appeng.me.storage.NetworkInventoryHandler;
+import appeng.util.item.KeyedItemList;
 
 public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
     @Nonnull
-    private static final Deque<NetworkMonitor<?>> GLOBAL_DEPTH = Queues.newArrayDeque();
+    private static final ReentrancyGuard GUARD = new ReentrancyGuard("storage change notification");
 
     @Nonnull
     private final StorageService service;
     @Nonnull
     private final IStorageChannel<T> myChannel;
     @Nonnull
+    private final ReentrancyGuard.Entry guardEntry = new ReentrancyGuard.Entry(this);
+    @Nonnull
     private final IItemList<T> cachedList;
     @Nonnull
     private final Map<IMEMonitorHandlerReceiver<T>, Object> listeners;
+    @Nonnull
+    private final List<WeakReference<StorageSnapshot<T>>> snapshots = new ArrayList<>();
+    @Nullable
+    private final ItemStorageTotals itemTotals;
+
+    @Nullable
+    private IItemList<T> pendingChanges;
+    @Nullable
+    private IActionSource pendingSource;
 
     private boolean sendEvent = false;
     private boolean hasChanged = false;
+    /**
+     * Incremented whenever the content of the cached storage list changes.
+     */
+    private long version = 0;
     @Nonnegative
     private int localDepthSemaphore = 0;
 
     public NetworkMonitor(final StorageService service, final IStorageChannel<T> chan) {
         this.service = service;
         this.myChannel = chan;
-        this.cachedList = chan.createList();
+        this.cachedList = createStorageList(service, chan);
         this.listeners = new HashMap<>();
+        this.itemTotals = chan == StorageChannels.items() ? new ItemStorageTotals() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends IAEStack<T>> IItemList<T> createStorageList(final StorageService service,
+            final IStorageChannel<T> chan) {
+        if (AEConfig.instance().isCompactStorageList() && chan == StorageChannels.items()) {
+            return (IItemList<T>) new KeyedItemList(service.getItemStackKeys());
+        }
+        return chan.createList();
     }
 
     @Override
@@ -121,6 +156,8 @@ public int getPriority() {
     public IItemList<T> getStorageList() {
         if (this.hasChanged) {
             this.hasChanged = false;
+            this.forEachSnapshot(StorageSnapshot::preserveAll);
+            this.version++;
             this.cachedList.resetStatus();
             return this.getAvailableItems(this.cachedList);
         }
@@ -128,6 +165,88 @@ public IItemList<T> getStorageList() {
         return this.cachedList;
     }
 
+    /**
+     * Takes a snapshot of the current storage list without copying it. Subsequent changes to the storage list are not
+     * visible through the snapshot.
+     *
+     * @return The snapshot, or null if the source is not allowed to extract items from this network.
+     */
+    @Nullable
+    public StorageSnapshot<T> createSnapshot(final IActionSource src) {
+        if (this.getHandler() instanceof NetworkInventoryHandler<T> handler
+                && !handler.hasPermission(src, SecurityPermissions.EXTRACT)) {
+            return null;
+        }
+
+        this.getStorageList();
+
+        final StorageSnapshot<T> snapshot = new StorageSnapshot<>(this, this.myChannel, this.version);
+        this.snapshots.add(new WeakReference<>(snapshot));
+        return snapshot;
+    }
+
+    /**
+     * @return The running totals of the storage list, or null if this monitor is not for the item storage channel.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    ItemStorageTotals getItemTotals() {
+        if (this.itemTotals != null && !this.itemTotals.isValid()) {
+            this.itemTotals.rebuild((IItemList<IAEItemStack>) this.getStorageList());
+        }
+        return this.itemTotals;
+    }
+
+    /**
+     * Applies the exact differences caused by a storage operation of this monitor to the running item totals. This is
+     * independent of the cached storage list, which may not be updated incrementally.
+     */
+    private void applyChangesToItemTotals(final Iterable<T> changes) {
+        if (this.itemTotals == null || !this.itemTotals.isValid()) {
+            return;
+        }
+
+        for (final T change : changes) {
+            this.itemTotals.add((IAEItemStack) change, change.getStackSize());
+        }
+    }
+
+    private void invalidateItemTotals() {
+        if (this.itemTotals != null) {
+            this.itemTotals.invalidate();
+        }
+    }
+
+    /**
+     * @return The cached storage list, without rebuilding it if it is out of date.
+     */
+    IItemList<T> getLiveStorageList() {
+        return this.cachedList;
+    }
+
+    long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Calls the action for each open snapshot and forgets the snapshots that were closed or garbage collected.
+     */
+    private void forEachSnapshot(final Consumer<StorageSnapshot<T>> action) {
+        if (this.snapshots.isEmpty()) {
+            return;
+        }
+
+        final Iterator<WeakReference<StorageSnapshot<T>>> it = this.snapshots.iterator();
+        while (it.hasNext()) {
+            final StorageSnapshot<T> snapshot = it.next().get();
+            if (snapshot == null || snapshot.isClosed()) {
+                it.remove();
+            } else {
+                action.accept(snapshot);
+            }
+        }
+    }
+
     @Override
     public T injectItems(final T input, final Actionable mode, final IActionSource src) {
         if (mode == Actionable.SIMULATE) {
@@ -145,6 +264,40 @@ public T injectItems(final T input, final Actionable mode, final IActionSource s
         return leftover;
     }
 
+    @Override
+    public List<T> injectMultiple(final List<T> inputs, final Actionable mode, final IActionSource src) {
+        if (mode == Actionable.SIMULATE) {
+            return this.getHandler().injectMultiple(inputs, mode, src);
+        }
+
+        this.localDepthSemaphore++;
+        final List<T> leftovers = this.getHandler().injectMultiple(inputs, mode, src);
+        this.localDepthSemaphore--;
+
+        if (this.localDepthSemaphore == 0) {
+            this.monitorDifferences(inputs, leftovers, false, src);
+        }
+
+        return leftovers;
+    }
+
+    @Override
+    public List<T> extractMultiple(final List<T> requests, final Actionable mode, final IActionSource src) {
+        if (mode == Actionable.SIMULATE) {
+            return this.getHandler().extractMultiple(requests, mode, src);
+        }
+
+        this.localDepthSemaphore++;
+        final List<T> extracted = this.getHandler().extractMultiple(requests, mode, src);
+        this.localDepthSemaphore--;
+
+        if (this.localDepthSemaphore == 0) {
+            this.monitorDifferences(requests, extracted, true, src);
+        }
+
+        return extracted;
+    }
+
     @Override
     public boolean isPrioritized(final T input) {
         return this.getHandler().isPrioritized(input);
@@ -171,6 +324,36 @@ private Iterator<Entry<IMEMonitorHandlerReceiver<T>, Object>> getListeners() {
 
     private T monitorDifference(final IAEStack<T> original, final T leftOvers, final boolean extraction,
             final IActionSource src) {
+        final T diff = this.getDifference(original, leftOvers, extraction);
+
+        if (diff != null) {
+            this.postChange(true, ImmutableList.of(diff), src, true);
+        }
+
+        return leftOvers;
+    }
+
+    /**
+     * Posts the differences of a batch operation as a single change.
+     */
+    private void monitorDifferences(final List<T> originals, final List<T> results, final boolean extraction,
+            final IActionSource src) {
+        final List<T> diffs = new ArrayList<>(originals.size());
+        for (int i = 0; i < originals.size(); i++) {
+            final T original = originals.get(i);
+            final T diff = original != null ? this.getDifference(original, results.get(i), extraction) : null;
+            if (diff != null) {
+                diffs.add(diff);
+            }
+        }
+
+        if (!diffs.isEmpty()) {
+            this.postChange(true, diffs, src, true);
+        }
+    }
+
+    @Nullable
+    private T getDifference(final IAEStack<T> original, final T leftOvers, final boolean extraction) {
         final T diff = original.copy();
 
         if (extraction) {
@@ -179,44 +362,33 @@ private T monitorDifference(final IAEStack<T> original, final T leftOvers, final
             diff.decStackSize(leftOvers.getStackSize());
         }
 
-        if (diff.getStackSize() != 0) {
-            this.postChangesToListeners(ImmutableList.of(diff), src);
-        }
-
-        return leftOvers;
+        return diff.getStackSize() != 0 ? diff : null;
     }
 
-    private void notifyListenersOfChange(final Iterable<T> diff, final IActionSource src) {
-        this.hasChanged = true;
+    /**
+     * @param batched   True if changes are currently being batched, in which case only the listeners matching
+     *                  <code>endOfTick</code> are notified.
+     * @param endOfTick True if the changes are the coalesced changes of a tick, false if they are delivered
+     *                  immediately.
+     */
+    private void notifyListenersOfChange(final Iterable<T> diff, final IActionSource src, final boolean batched,
+            final boolean endOfTick) {
         final Iterator<Entry<IMEMonitorHandlerReceiver<T>, Object>> i = this.getListeners();
 
         while (i.hasNext()) {
             final Entry<IMEMonitorHandlerReceiver<T>, Object> o = i.next();
             final IMEMonitorHandlerReceiver<T> receiver = o.getKey();
             if (receiver.isValid(o.getValue())) {
-                receiver.postChange(this, diff, src);
+                if (!batched || receiver.acceptsDeferredChanges() == endOfTick) {
+                    receiver.postChange(this, diff, src);
+                }
             } else {
                 i.remove();
             }
         }
     }
 
-    private void postChangesToListeners(final Iterable<T> changes, final IActionSource src) {
-        this.postChange(true, changes, src);
-    }
-
-    protected void postChange(final boolean add, final Iterable<T> changes, final IActionSource src) {
-        if (this.localDepthSemaphore > 0 || GLOBAL_DEPTH.contains(this)) {
-            return;
-        }
-
-        GLOBAL_DEPTH.push(this);
-        this.localDepthSemaphore++;
-
-        this.sendEvent = true;
-
-        this.notifyListenersOfChange(changes, src);
-
+    private void notifyWatchersOfChange(final boolean add, final Iterable<T> changes, final IActionSource src) {
         for (final T changedItem : changes) {
             T difference = changedItem;
 
@@ -225,7 +397,7 @@ protected void postChange(final boolean add, final Iterable<T> changes, final IA
                 difference.setStackSize(-changedItem.getStackSize());
             }
 
-            if (this.service.getInterestManager().containsKey(changedItem)) {
+            if (changedItem != null) {
                 final Collection<ItemWatcher> list = this.service.getInterestManager().get(changedItem);
 
                 if (!list.isEmpty()) {
@@ -247,17 +419,145 @@ protected void postChange(final boolean add, final Iterable<T> changes, final IA
                 }
             }
         }
+    }
 
-        final NetworkMonitor<?> last = GLOBAL_DEPTH.pop();
-        this.localDepthSemaphore--;
+    /**
+     * Only plain changes in amount can be coalesced. Changes without an amount signal other changes (i.e. of the
+     * craftable state) and are always delivered immediately.
+     */
+    private boolean canDeferChanges(final Iterable<T> changes) {
+        if (!AEConfig.instance().isBatchStorageChanges()) {
+            return false;
+        }
 
-        if (last != this) {
-            throw new IllegalStateException("Invalid Access to Networked Storage API detected.");
+        for (final T change : changes) {
+            if (change == null || change.getStackSize() == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void deferChanges(final boolean add, final Iterable<T> changes, final IActionSource src) {
+        if (this.pendingChanges == null) {
+            this.pendingChanges = this.myChannel.createList();
+            this.pendingSource = src;
+        } else if (this.pendingSource != src) {
+            this.pendingSource = new BaseActionSource();
         }
+
+        for (final T change : changes) {
+            if (add) {
+                this.pendingChanges.add(change);
+            } else {
+                final T negated = change.copy();
+                negated.setStackSize(-change.getStackSize());
+                this.pendingChanges.add(negated);
+            }
+        }
+    }
+
+    /**
+     * Applies the exact differences caused by a storage operation of this monitor to the cached storage list.
+     *
+     * @return false if the differences could not be applied and the list needs to be rebuilt.
+     */
+    private boolean applyChangesToStorageList(final Iterable<T> changes) {
+        for (final T change : changes) {
+            if (change.getStackSize() == 0) {
+                return false;
+            }
+
+            this.forEachSnapshot(snapshot -> snapshot.preserve(change));
+            this.version++;
+
+            // The entries of a compact list are not backed by the list, so they have to be updated through it
+            final T entry = this.cachedList.findPrecise(change);
+            if (entry != null) {
+                if (entry.getStackSize() + change.getStackSize() < 0) {
+                    return false;
+                }
+                this.cachedList.addStorage(change);
+            } else if (change.getStackSize() > 0) {
+                final T newEntry = change.copy().reset();
+                newEntry.setStackSize(change.getStackSize());
+                this.cachedList.add(newEntry);
+            } else {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected void postChange(final boolean add, final Iterable<T> changes, final IActionSource src) {
+        this.postChange(add, changes, src, false);
+    }
+
+    /**
+     * Posts the exact difference caused by replacing a single cell of the network, which can be applied to the cached
+     * storage list without rebuilding it.
+     */
+    void postCellChanges(final Iterable<T> changes, final IActionSource src) {
+        this.postChange(true, changes, src, true);
+    }
+
+    /**
+     * @param exact True if the changes are the exact differences of an operation performed through this monitor. Only
+     *              those are applied incrementally to the cached storage list. Changes reported by other sources (i.e.
+     *              external inventories) may already be contained in the result of a previous operation.
+     */
+    private void postChange(final boolean add, final Iterable<T> changes, final IActionSource src,
+            final boolean exact) {
+        if (this.localDepthSemaphore > 0) {
+            // Changes posted by nested operations are not part of the difference the outer operation applies to the
+            // cached list and the item totals, so both have to be recomputed
+            this.hasChanged = true;
+            this.invalidateItemTotals();
+            return;
+        }
+
+        if (!GUARD.enter(this.guardEntry)) {
+            // The changes are dropped to prevent recursion, so the cached list can no longer be trusted
+            this.hasChanged = true;
+            this.invalidateItemTotals();
+            return;
+        }
+
+        this.localDepthSemaphore++;
+
+        this.sendEvent = true;
+
+        if (exact) {
+            this.applyChangesToItemTotals(changes);
+        } else {
+            this.invalidateItemTotals();
+        }
+
+        if (this.hasChanged || !exact || !AEConfig.instance().isIncrementalStorageList()) {
+            this.hasChanged = true;
+        } else if (!this.applyChangesToStorageList(changes)) {
+            this.hasChanged = true;
+            this.invalidateItemTotals();
+        }
+
+        if (this.canDeferChanges(changes)) {
+            this.notifyListenersOfChange(changes, src, true, false);
+            this.deferChanges(add, changes, src);
+        } else {
+            this.notifyListenersOfChange(changes, src, false, false);
+        }
+        // Stack watchers drive machines such as level emitters, which must not react a tick late
+        this.notifyWatchersOfChange(add, changes, src);
+
+        this.localDepthSemaphore--;
+        GUARD.exit(this.guardEntry);
     }
 
     void forceUpdate() {
         this.hasChanged = true;
+        this.invalidateItemTotals();
 
         final Iterator<Entry<IMEMonitorHandlerReceiver<T>, Object>> i = this.getListeners();
         while (i.hasNext()) {
@@ -272,7 +572,34 @@ void forceUpdate() {
         }
     }
 
+    /**
+     * Delivers the changes that were coalesced during this tick to the listeners accepting deferred changes.
+     */
+    void postDeferredChanges() {
+        if (this.pendingChanges == null) {
+            return;
+        }
+
+        final IItemList<T> changes = this.pendingChanges;
+        final IActionSource src = this.pendingSource;
+        this.pendingChanges = null;
+        this.pendingSource = null;
+
+        if (changes.isEmpty() || !GUARD.enter(this.guardEntry)) {
+            return;
+        }
+
+        this.localDepthSemaphore++;
+
+        this.notifyListenersOfChange(changes, src, true, true);
+
+        this.localDepthSemaphore--;
+        GUARD.exit(this.guardEntry);
+    }
+
     void onTick() {
+        this.postDeferredChanges();
+
         if (this.sendEvent) {
             this.sendEvent = false;
             this.service.getGrid().postEvent(new GridStorageEvent(this, this.myChannel));
@@ -28,6 +28,9 @@
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
 import appeng.api.AEApi;
 import appeng.api.config.SecurityPermissions;
 import appeng.api.features.IPlayerRegistry;
@@ -51,6 +54,11 @@ public class SecurityService implements ISecurityService, IGridServiceProvider {
     private final IGrid myGrid;
     private final List<ISecurityProvider> securityProvider = new ArrayList<>();
     private final HashMap<Integer, EnumSet<SecurityPermissions>> playerPerms = new HashMap<>();
+    /**
+     * The permissions of each player that has been checked so far, including the fallback to the default permissions,
+     * indexed by the ordinal of the permission. Cleared whenever the permissions of the security station change.
+     */
+    private final Int2ObjectMap<boolean[]> permissionDecisions = new Int2ObjectOpenHashMap<>();
     private long securityKey = -1;
 
     public SecurityService(final IGrid g) {
@@ -59,6 +67,7 @@ public SecurityService(final IGrid g) {
 
     private void updatePermissions() {
         this.playerPerms.clear();
+        this.permissionDecisions.clear();
         if (this.securityProvider.isEmpty()) {
             return;
         }
@@ -130,6 +139,11 @@ public boolean hasPermission(final Player player, final SecurityPermissions perm
         Preconditions.checkNotNull(perm);
 
         if (player instanceof ServerPlayer serverPlayer) {
+            // Resolving the player id is not needed if there is no security station
+            if (!this.isAvailable()) {
+                return true;
+            }
+
             var playerID = IPlayerRegistry.getPlayerId(serverPlayer);
             return this.hasPermission(playerID, perm);
         } else {
@@ -140,22 +154,34 @@ public boolean hasPermission(final Player player, final SecurityPermissions perm
     @Override
     public boolean hasPermission(final int playerID, final SecurityPermissions perm) {
         if (this.isAvailable()) {
-            final EnumSet<SecurityPermissions> perms = this.playerPerms.get(playerID);
-
-            if (perms == null) {
-                if (playerID == -1) // no default?
-                {
-                    return false;
-                } else {
-                    return this.hasPermission(-1, perm);
-                }
+            boolean[] decisions = this.permissionDecisions.get(playerID);
+            if (decisions == null) {
+                decisions = this.resolvePermissions(playerID);
+                this.permissionDecisions.put(playerID, decisions);
             }
 
-            return perms.contains(perm);
+            return decisions[perm.ordinal()];
         }
         return true;
     }
 
+    private boolean[] resolvePermissions(final int playerID) {
+        EnumSet<SecurityPermissions> perms = this.playerPerms.get(playerID);
+
+        // Players without permissions of their own get the default permissions, if there are any
+        if (perms == null && playerID != -1) {
+            perms = this.playerPerms.get(-1);
+        }
+
+        final boolean[] decisions = new boolean[SecurityPermissions.values().length];
+        if (perms != null) {
+            for (final SecurityPermissions perm : perms) {
+                decisions[perm.ordinal()] = true;
+            }
+        }
+        return decisions;
+    }
+
     @Override
     public int getOwner() {
         if (this.isAvailable()) {
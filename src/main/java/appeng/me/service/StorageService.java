@@ -25,10 +25,10 @@
 import java.util.List;
 import java.util.Map;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
+import javax.annotation.Nullable;
 
 import appeng.api.AEApi;
+import appeng.api.config.FuzzyMode;
 import appeng.api.networking.IGrid;
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.IGridServiceProvider;
@@ -44,13 +44,15 @@
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.StorageChannels;
 import appeng.api.storage.cells.ICellProvider;
+import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
 import appeng.me.helpers.BaseActionSource;
-import appeng.me.helpers.GenericInterestManager;
 import appeng.me.helpers.MachineSource;
+import appeng.me.helpers.StackInterestManager;
 import appeng.me.storage.ItemWatcher;
 import appeng.me.storage.NetworkInventoryHandler;
+import appeng.util.item.ItemStackKeys;
 
 public class StorageService implements IStorageService, IGridServiceProvider {
     static {
@@ -63,9 +65,9 @@ public class StorageService implements IStorageService, IGridServiceProvider {
     private final IGrid myGrid;
     private final HashSet<ICellProvider> activeCellProviders = new HashSet<>();
     private final HashSet<ICellProvider> inactiveCellProviders = new HashSet<>();
-    private final SetMultimap<IAEStack, ItemWatcher> interests = HashMultimap.create();
-    private final GenericInterestManager<ItemWatcher> interestManager = new GenericInterestManager<>(this.interests);
+    private final StackInterestManager<ItemWatcher> interestManager = new StackInterestManager<>();
     private final HashMap<IGridNode, IStackWatcher> watchers = new HashMap<>();
+    private final ItemStackKeys itemStackKeys = new ItemStackKeys();
     private Map<IStorageChannel<? extends IAEStack>, NetworkInventoryHandler<?>> storageNetworks;
     private Map<IStorageChannel<? extends IAEStack>, NetworkMonitor<?>> storageMonitors;
 
@@ -85,6 +87,9 @@ public void onServerEndTick() {
 
     @Override
     public void removeNode(final IGridNode node) {
+        // The grid is torn down together with its last node and won't tick again to deliver these
+        this.storageMonitors.forEach((channel, monitor) -> monitor.postDeferredChanges());
+
         var cellProvider = node.getService(ICellProvider.class);
         if (cellProvider != null) {
             final CellChangeTracker tracker = new CellChangeTracker();
@@ -204,6 +209,73 @@ public void cellUpdate() {
         tracker.applyChanges();
     }
 
+    /**
+     * Replaces the handler of a single cell of an active cell provider, i.e. when a cell is inserted into or removed
+     * from a drive, without rebuilding the storage of the whole grid. Only the difference between the content of both
+     * cells is posted to the network.
+     *
+     * @return False if the provider is not active on this grid, in which case nothing has been changed.
+     */
+    public boolean replaceCell(final ICellProvider provider, @Nullable final IMEInventoryHandler<?> removed,
+            @Nullable final IMEInventoryHandler<?> added, final IActionSource src) {
+        if (!this.activeCellProviders.contains(provider)) {
+            return false;
+        }
+
+        if (removed != null && added != null && removed.getChannel() == added.getChannel()) {
+            this.replaceCellHandler((IStorageChannel) removed.getChannel(), (IMEInventoryHandler) removed,
+                    (IMEInventoryHandler) added, src);
+        } else {
+            if (removed != null) {
+                this.replaceCellHandler((IStorageChannel) removed.getChannel(), (IMEInventoryHandler) removed, null,
+                        src);
+            }
+            if (added != null) {
+                this.replaceCellHandler((IStorageChannel) added.getChannel(), null, (IMEInventoryHandler) added, src);
+            }
+        }
+
+        return true;
+    }
+
+    private <T extends IAEStack<T>> void replaceCellHandler(final IStorageChannel<T> channel,
+            @Nullable final IMEInventoryHandler<T> removed, @Nullable final IMEInventoryHandler<T> added,
+            final IActionSource src) {
+        var storageNetwork = (NetworkInventoryHandler<T>) this.storageNetworks.get(channel);
+        final IItemList<T> content = channel.createList();
+
+        if (removed != null) {
+            if (storageNetwork != null) {
+                storageNetwork.removeStorage(removed);
+            }
+
+            removed.getAvailableItems(content);
+            for (final T stack : content) {
+                stack.setStackSize(-stack.getStackSize());
+            }
+        }
+
+        if (added != null) {
+            if (storageNetwork != null) {
+                storageNetwork.addNewStorage(added);
+            }
+
+            added.getAvailableItems(content);
+        }
+
+        // Types stored in both cells cancel each other out
+        final List<T> changes = new ArrayList<>();
+        for (final T stack : content) {
+            if (stack.getStackSize() != 0) {
+                changes.add(stack);
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            this.storageMonitors.get(channel).postCellChanges(changes, src);
+        }
+    }
+
     private <T extends IAEStack<T>, C extends IStorageChannel<T>> void postChangesToNetwork(final C chan,
             final int upOrDown, final IItemList<T> availableItems, final IActionSource src) {
         this.storageMonitors.get(chan).postChange(upOrDown > 0, (Iterable) availableItems, src);
@@ -228,6 +300,12 @@ private <T extends IAEStack<T>, C extends IStorageChannel<T>> NetworkInventoryHa
     public <T extends IAEStack<T>> void postAlterationOfStoredItems(IStorageChannel<T> chan,
             Iterable<? extends IAEStack<T>> input,
             final IActionSource src) {
+        // Items may have appeared in handlers that the injection routing of the network doesn't know about yet
+        var storageNetwork = (NetworkInventoryHandler<T>) this.storageNetworks.get(chan);
+        if (storageNetwork != null) {
+            storageNetwork.invalidateRoutes(input);
+        }
+
         this.storageMonitors.get(chan).postChange(true, (Iterable) input, src);
     }
 
@@ -243,14 +321,35 @@ public void unregisterAdditionalCellProvider(final ICellProvider provider) {
         this.inactiveCellProviders.remove(provider);
     }
 
-    public GenericInterestManager<ItemWatcher> getInterestManager() {
+    public StackInterestManager<ItemWatcher> getInterestManager() {
         return this.interestManager;
     }
 
+    @Override
+    public long getStoredItemCount() {
+        return this.getItemTotals().getTotal();
+    }
+
+    @Override
+    public long getStoredItemCount(final IAEItemStack filter, final FuzzyMode fuzzyMode) {
+        return this.getItemTotals().getFuzzyTotal(filter, fuzzyMode);
+    }
+
+    private ItemStorageTotals getItemTotals() {
+        return this.storageMonitors.get(StorageChannels.items()).getItemTotals();
+    }
+
     IGrid getGrid() {
         return this.myGrid;
     }
 
+    /**
+     * @return The dictionary of item type ids shared by the compact item lists of this grid.
+     */
+    ItemStackKeys getItemStackKeys() {
+        return this.itemStackKeys;
+    }
+
     private class CellChangeTrackerRecord<T extends IAEStack<T>> {
 
         final IStorageChannel<T> channel;
@@ -0,0 +1,281 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import appeng.api.config.Actionable;
+import appeng.api.config.FuzzyMode;
+import appeng.api.networking.security.IActionSource;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.IStorageChannel;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+
+/**
+ * A read-only view of the cached storage list of a {@link NetworkMonitor} as it was when the snapshot was taken. The
+ * snapshot does not accept items and only answers simulated extractions.
+ * <p/>
+ * Taking a snapshot does not copy anything. Instead, the monitor hands the previous amount of every item type to its
+ * open snapshots right before it changes that type in its storage list. Reads are answered from these preserved
+ * amounts first and fall through to the live storage list for all item types that did not change. If the monitor has
+ * to rebuild its storage list, the remaining item types are preserved as well and the snapshot no longer reads the
+ * live list at all.
+ * <p/>
+ * Snapshots have to be {@link #close() closed} once they are no longer needed, otherwise the monitor keeps preserving
+ * changes for them until they are garbage collected.
+ */
+public final class StorageSnapshot<T extends IAEStack<T>> implements IMEInventory<T>, Iterable<T> {
+
+    private final NetworkMonitor<T> monitor;
+    private final IStorageChannel<T> channel;
+    private final long version;
+
+    /**
+     * Item types that changed after the snapshot was taken, with the amount they had when it was taken.
+     */
+    private final IItemList<T> preserved;
+
+    /**
+     * Item types that were not stored when the snapshot was taken, but have been added since.
+     */
+    private final Set<T> added = new HashSet<>();
+
+    /**
+     * True once all item types have been preserved and the live storage list is no longer consulted.
+     */
+    private boolean detached;
+    private boolean closed;
+
+    StorageSnapshot(final NetworkMonitor<T> monitor, final IStorageChannel<T> channel, final long version) {
+        this.monitor = monitor;
+        this.channel = channel;
+        this.preserved = channel.createList();
+        this.version = version;
+    }
+
+    /**
+     * @return The version of the monitor's storage list this snapshot shows.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Stops preserving changes for this snapshot. The snapshot must not be used afterwards.
+     */
+    public void close() {
+        this.closed = true;
+    }
+
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Called by the monitor right before the amount of the given item type changes in its storage list.
+     */
+    void preserve(final T what) {
+        if (this.detached || this.isPreserved(what)) {
+            return;
+        }
+
+        final T current = this.monitor.getLiveStorageList().findPrecise(what);
+        if (current != null && current.getStackSize() > 0) {
+            this.preserved.add(this.copyOf(current));
+        } else {
+            this.added.add(what.copy());
+        }
+    }
+
+    /**
+     * Called by the monitor right before it rebuilds its storage list.
+     */
+    void preserveAll() {
+        if (this.detached) {
+            return;
+        }
+
+        for (final T current : this.monitor.getLiveStorageList()) {
+            if (current.getStackSize() > 0 && !this.isPreserved(current)) {
+                this.preserved.add(this.copyOf(current));
+            }
+        }
+
+        this.added.clear();
+        this.detached = true;
+    }
+
+    private boolean isPreserved(final T what) {
+        return this.preserved.findPrecise(what) != null || this.added.contains(what);
+    }
+
+    /**
+     * @return True if the live storage list still has the same content as when the snapshot was taken.
+     */
+    private boolean isCurrent() {
+        return !this.detached && this.monitor.getVersion() == this.version;
+    }
+
+    private T copyOf(final T stack) {
+        final T copy = stack.copy().reset();
+        copy.setStackSize(stack.getStackSize());
+        return copy;
+    }
+
+    @Nullable
+    private T fromLiveList(final T current) {
+        if (current == null || current.getStackSize() <= 0) {
+            return null;
+        }
+        if (!this.isCurrent() && this.isPreserved(current)) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * @return The item type with the amount it had when the snapshot was taken, or null if it was not stored.
+     */
+    @Nullable
+    public T findPrecise(final T i) {
+        final T preservedStack = this.preserved.findPrecise(i);
+        if (preservedStack != null || this.detached) {
+            return preservedStack;
+        }
+        if (this.added.contains(i)) {
+            return null;
+        }
+
+        return this.fromLiveList(this.monitor.getLiveStorageList().findPrecise(i));
+    }
+
+    /**
+     * @return All fuzzy matches of the given item type, with the amounts they had when the snapshot was taken.
+     */
+    public Collection<T> findFuzzy(final T input, final FuzzyMode fuzzy) {
+        if (this.detached) {
+            return this.preserved.findFuzzy(input, fuzzy);
+        }
+
+        final List<T> result = new ArrayList<>();
+        for (final T current : this.monitor.getLiveStorageList().findFuzzy(input, fuzzy)) {
+            final T unchanged = this.fromLiveList(current);
+            if (unchanged != null) {
+                result.add(unchanged);
+            }
+        }
+        result.addAll(this.preserved.findFuzzy(input, fuzzy));
+        return result;
+    }
+
+    /**
+     * @return An iterator over all item types in this snapshot, with the amounts they had when it was taken.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (this.detached) {
+            return this.preserved.iterator();
+        }
+        return new SnapshotIterator();
+    }
+
+    @Override
+    public T injectItems(final T input, final Actionable mode, final IActionSource src) {
+        return input;
+    }
+
+    @Override
+    public T extractItems(final T request, final Actionable mode, final IActionSource src) {
+        if (mode == Actionable.MODULATE || request == null) {
+            return null;
+        }
+
+        final T available = this.findPrecise(request);
+        if (available == null) {
+            return null;
+        }
+
+        final T result = request.copy();
+        result.setStackSize(Math.min(request.getStackSize(), available.getStackSize()));
+        return result;
+    }
+
+    @Override
+    public IItemList<T> getAvailableItems(final IItemList<T> out) {
+        for (final T stack : this) {
+            out.add(stack);
+        }
+        return out;
+    }
+
+    @Override
+    public IStorageChannel<T> getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Iterates over the unchanged entries of the live storage list, followed by the preserved entries.
+     */
+    private class SnapshotIterator implements Iterator<T> {
+
+        private final Iterator<T> live = StorageSnapshot.this.monitor.getLiveStorageList().iterator();
+        private final Iterator<T> preserved = StorageSnapshot.this.preserved.iterator();
+        private T next;
+
+        SnapshotIterator() {
+            this.next = this.seekNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public T next() {
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+
+            final T result = this.next;
+            this.next = this.seekNext();
+            return result;
+        }
+
+        private T seekNext() {
+            while (this.live.hasNext()) {
+                final T current = fromLiveList(this.live.next());
+                if (current != null) {
+                    return current;
+                }
+            }
+
+            return this.preserved.hasNext() ? this.preserved.next() : null;
+        }
+    }
+}
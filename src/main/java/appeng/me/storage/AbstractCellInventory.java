@@ -18,10 +18,21 @@
 
 package appeng.me.storage;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.items.IItemHandler;
 
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
 import appeng.api.config.FuzzyMode;
 import appeng.api.implementations.items.IStorageCell;
 import appeng.api.storage.cells.CellState;
@@ -31,6 +42,16 @@
 import appeng.api.storage.data.IItemList;
 
 /**
+ * Cells store their content in a packed format: a list of item keys ({@link #ITEM_KEYS_TAG}) and a single long array
+ * with the count of each key ({@link #ITEM_COUNTS_TAG}). A slot keeps its key for as long as the type is stored in the
+ * cell, so persisting a cell only writes the keys of newly added types and the count array. Cells in the older format,
+ * which used a separate compound tag and count per type, are still read and are converted the next time they are
+ * written.
+ * <p/>
+ * The number of stored types ({@link #ITEM_TYPE_TAG}) and items ({@link #ITEM_COUNT_TAG}) are kept as a summary next to
+ * the items. All counts and the state of the cell, including the used bytes, are computed from this summary, so they
+ * never require the items to be decoded.
+ *
  * @author DrummerMC
  * @version rv6 - 2018-01-17
  * @since rv6 2018-01-17
@@ -43,6 +64,12 @@
     private static final String ITEM_SLOT_COUNT = "@";
     private static final String[] ITEM_SLOT_KEYS = new String[MAX_ITEM_TYPES];
     private static final String[] ITEM_SLOT_COUNT_KEYS = new String[MAX_ITEM_TYPES];
+    private static final String FORMAT_VERSION_TAG = "v";
+    private static final byte FORMAT_VERSION = 1;
+    private static final String ITEM_KEYS_TAG = "keys";
+    private static final String ITEM_COUNTS_TAG = "counts";
+    private static final LongAdder CHANGES = new LongAdder();
+    private static final LongAdder WRITES = new LongAdder();
     private final CompoundTag tagCompound;
     protected final ISaveProvider container;
     private int maxItemTypes;
@@ -53,6 +80,11 @@
     protected final IStorageCell<T> cellType;
     protected final int itemsPerByte;
     private boolean isPersisted = true;
+    /**
+     * The type stored in each slot of the packed format, or null for free slots. Only valid once the items are loaded.
+     */
+    private final List<T> slotTypes = new ArrayList<>();
+    private final Object2IntMap<T> slotIndex = new Object2IntOpenHashMap<>();
 
     static {
         for (int x = 0; x < MAX_ITEM_TYPES; x++) {
@@ -79,6 +111,7 @@ protected AbstractCellInventory(final IStorageCell<T> cellType, final ItemStack
         this.storedItems = this.tagCompound.getShort(ITEM_TYPE_TAG);
         this.storedItemCount = this.tagCompound.getInt(ITEM_COUNT_TAG);
         this.cellItems = null;
+        this.slotIndex.defaultReturnValue(-1);
     }
 
     protected IItemList<T> getCellItems() {
@@ -96,22 +129,65 @@ public void persist() {
             return;
         }
 
-        int itemCount = 0;
+        WRITES.increment();
 
-        // add new pretty stuff...
-        int x = 0;
+        final ListTag keys;
+        if (this.tagCompound.contains(FORMAT_VERSION_TAG)) {
+            keys = this.tagCompound.getList(ITEM_KEYS_TAG, Tag.TAG_COMPOUND);
+        } else {
+            // Convert from the old format, the slots have not been assigned yet
+            this.removeLegacyItems();
+            keys = new ListTag();
+        }
+
+        // Free the slots of types that are no longer stored, and slots that could not be loaded
+        for (int slot = 0; slot < this.slotTypes.size(); slot++) {
+            final T type = this.slotTypes.get(slot);
+            if (type == null) {
+                if (slot < keys.size() && !keys.getCompound(slot).isEmpty()) {
+                    keys.set(slot, new CompoundTag());
+                }
+            } else {
+                final T stored = this.cellItems.findPrecise(type);
+                if (stored == null || stored.getStackSize() <= 0) {
+                    this.slotTypes.set(slot, null);
+                    this.slotIndex.removeInt(type);
+                    keys.set(slot, new CompoundTag());
+                }
+            }
+        }
+
+        // Only newly stored types need their key to be written
+        int itemCount = 0;
         for (final T v : this.cellItems) {
             itemCount += v.getStackSize();
+            if (this.slotIndex.getInt(v) < 0) {
+                this.allocateSlot(keys, v);
+            }
+        }
 
-            final CompoundTag g = new CompoundTag();
-            v.writeToNBT(g);
-            this.tagCompound.put(ITEM_SLOT_KEYS[x], g);
-            this.tagCompound.putInt(ITEM_SLOT_COUNT_KEYS[x], (int) v.getStackSize());
-
-            x++;
+        int slots = this.slotTypes.size();
+        while (slots > 0 && this.slotTypes.get(slots - 1) == null) {
+            slots--;
+            this.slotTypes.remove(slots);
+            keys.remove(slots);
         }
 
-        final short oldStoredItems = this.storedItems;
+        if (slots == 0) {
+            // Empty cells have to stack with new ones
+            this.tagCompound.remove(FORMAT_VERSION_TAG);
+            this.tagCompound.remove(ITEM_KEYS_TAG);
+            this.tagCompound.remove(ITEM_COUNTS_TAG);
+        } else {
+            final long[] counts = new long[slots];
+            for (final T v : this.cellItems) {
+                counts[this.slotIndex.getInt(v)] = v.getStackSize();
+            }
+
+            this.tagCompound.putByte(FORMAT_VERSION_TAG, FORMAT_VERSION);
+            this.tagCompound.put(ITEM_KEYS_TAG, keys);
+            this.tagCompound.putLongArray(ITEM_COUNTS_TAG, counts);
+        }
 
         this.storedItems = (short) this.cellItems.size();
         if (this.cellItems.isEmpty()) {
@@ -127,13 +203,42 @@ public void persist() {
             this.tagCompound.putInt(ITEM_COUNT_TAG, itemCount);
         }
 
-        // clean any old crusty stuff...
-        for (; x < oldStoredItems && x < this.maxItemTypes; x++) {
+        this.isPersisted = true;
+    }
+
+    private void allocateSlot(final ListTag keys, final T v) {
+        final T type = v.copy();
+        final CompoundTag key = new CompoundTag();
+        type.writeToNBT(key);
+
+        int slot = this.slotTypes.indexOf(null);
+        if (slot < 0) {
+            slot = this.slotTypes.size();
+            this.slotTypes.add(type);
+            keys.add(key);
+        } else {
+            this.slotTypes.set(slot, type);
+            keys.set(slot, key);
+        }
+        this.slotIndex.put(type, slot);
+    }
+
+    private void removeLegacyItems() {
+        for (int x = 0; x < MAX_ITEM_TYPES; x++) {
             this.tagCompound.remove(ITEM_SLOT_KEYS[x]);
             this.tagCompound.remove(ITEM_SLOT_COUNT_KEYS[x]);
         }
+    }
 
-        this.isPersisted = true;
+    /**
+     * Accounts for items that were added to the cell items before the changes are saved, so that the remaining
+     * capacity of the cell is correct while a batch of stacks is injected.
+     */
+    protected void onItemsAdded(final long count, final boolean newType) {
+        this.storedItemCount += count;
+        if (newType) {
+            this.storedItems++;
+        }
     }
 
     protected void saveChanges() {
@@ -145,7 +250,9 @@ protected void saveChanges() {
         }
 
         this.isPersisted = false;
+        CHANGES.increment();
         if (this.container != null) {
+            // The container decides when the changes are written to the cell, usually when it is saved or removed
             this.container.saveChanges(this);
         } else {
             // if there is no ISaveProvider, store to NBT immediately
@@ -153,33 +260,99 @@ protected void saveChanges() {
         }
     }
 
+    /**
+     * @return The number of modifications made to cell inventories since the game started.
+     */
+    public static long getChangeCount() {
+        return CHANGES.sum();
+    }
+
+    /**
+     * @return The number of times a cell inventory was written to its item stack since the game started. Multiple
+     *         changes to a cell inventory that is held by a drive or chest are written at once.
+     */
+    public static long getWriteCount() {
+        return WRITES.sum();
+    }
+
     private void loadCellItems() {
         if (this.cellItems == null) {
             this.cellItems = this.getChannel().createList();
         }
 
         this.cellItems.resetStatus(); // clears totals and stuff.
+        this.slotTypes.clear();
+        this.slotIndex.clear();
+
+        final boolean needsUpdate;
+        if (this.tagCompound.contains(FORMAT_VERSION_TAG)) {
+            needsUpdate = this.loadPackedCellItems();
+        } else {
+            needsUpdate = this.loadLegacyCellItems();
+        }
 
+        if (needsUpdate) {
+            this.saveChanges();
+        }
+    }
+
+    private boolean loadPackedCellItems() {
+        final ListTag keys = this.tagCompound.getList(ITEM_KEYS_TAG, Tag.TAG_COMPOUND);
+        final long[] counts = this.tagCompound.getLongArray(ITEM_COUNTS_TAG);
+        boolean needsUpdate = false;
+
+        for (int slot = 0; slot < keys.size(); slot++) {
+            final CompoundTag key = keys.getCompound(slot);
+            final long stackSize = slot < counts.length ? counts[slot] : 0;
+
+            T type = null;
+            if (!key.isEmpty() && stackSize > 0) {
+                type = this.loadCellItem(key, stackSize);
+                needsUpdate |= type == null;
+            }
+
+            if (type != null && this.slotIndex.getInt(type) < 0) {
+                this.cellItems.add(type);
+                this.slotIndex.put(type, slot);
+                this.slotTypes.add(type);
+            } else {
+                if (type != null) {
+                    // Another slot resolved to the same type, its count is merged into the first slot on save
+                    this.cellItems.add(type);
+                }
+                this.slotTypes.add(null);
+                needsUpdate |= !key.isEmpty();
+            }
+        }
+
+        return needsUpdate;
+    }
+
+    private boolean loadLegacyCellItems() {
         final int types = (int) this.getStoredItemTypes();
         boolean needsUpdate = false;
 
         for (int slot = 0; slot < types; slot++) {
             CompoundTag compoundTag = this.tagCompound.getCompound(ITEM_SLOT_KEYS[slot]);
             int stackSize = this.tagCompound.getInt(ITEM_SLOT_COUNT_KEYS[slot]);
-            needsUpdate |= !this.loadCellItem(compoundTag, stackSize);
+            final T type = this.loadCellItem(compoundTag, stackSize);
+            if (type == null) {
+                needsUpdate = true;
+            } else if (stackSize > 0) {
+                this.cellItems.add(type);
+            }
         }
 
-        if (needsUpdate) {
-            this.saveChanges();
-        }
+        return needsUpdate;
     }
 
     /**
      * Load a single item.
-     * 
-     * @return true when successfully loaded
+     *
+     * @return the loaded item with the given stack size, or null if it could not be loaded
      */
-    protected abstract boolean loadCellItem(CompoundTag compoundTag, int stackSize);
+    @Nullable
+    protected abstract T loadCellItem(CompoundTag compoundTag, long stackSize);
 
     @Override
     public IItemList<T> getAvailableItems(final IItemList<T> out) {
@@ -18,6 +18,9 @@
 
 package appeng.me.storage;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
@@ -38,7 +41,7 @@
 public class BasicCellInventory<T extends IAEStack<T>> extends AbstractCellInventory<T> {
     private final IStorageChannel<T> channel;
 
-    private BasicCellInventory(final IStorageCell<T> cellType, final ItemStack o, final ISaveProvider container) {
+    BasicCellInventory(final IStorageCell<T> cellType, final ItemStack o, final ISaveProvider container) {
         super(cellType, o, container);
         this.channel = cellType.getChannel();
     }
@@ -103,27 +106,58 @@ private static IStorageCell<?> getStorageCell(final ItemStack input) {
 
     private static boolean isCellEmpty(ICellInventory<?> inv) {
         if (inv != null) {
-            return inv.getAvailableItems().isEmpty();
+            return inv.isEmpty();
         }
         return true;
     }
 
     @Override
     public T injectItems(T input, Actionable mode, IActionSource src) {
-        if (input == null) {
+        if (input == null || input.getStackSize() == 0) {
             return null;
         }
-        if (input.getStackSize() == 0) {
-            return null;
+
+        final T leftover = this.injectItem(input, mode);
+        if (mode == Actionable.MODULATE && leftover != input) {
+            this.saveChanges();
+        }
+        return leftover;
+    }
+
+    /**
+     * Injects all stacks, but saves the changes of the cell only once.
+     */
+    @Override
+    public List<T> injectMultiple(List<T> inputs, Actionable mode, IActionSource src) {
+        final List<T> leftovers = new ArrayList<>(inputs.size());
+        boolean changed = false;
+        for (T input : inputs) {
+            if (input == null || input.getStackSize() == 0) {
+                leftovers.add(null);
+                continue;
+            }
+
+            final T leftover = this.injectItem(input, mode);
+            changed |= leftover != input;
+            leftovers.add(leftover);
         }
 
+        if (mode == Actionable.MODULATE && changed) {
+            this.saveChanges();
+        }
+        return leftovers;
+    }
+
+    /**
+     * Injects a stack without saving the changes of the cell.
+     *
+     * @return the input itself if nothing was stored, otherwise the leftover
+     */
+    private T injectItem(T input, Actionable mode) {
         if (this.cellType.isBlackListed(this.getItemStack(), input)) {
             return input;
         }
-        // This is slightly hacky as it expects a read-only access, but fine for now.
-        // TODO: Guarantee a read-only access. E.g. provide an isEmpty() method and
-        // ensure CellInventory does not write
-        // any NBT data for empty cells instead of relying on an empty IItemContainer
+        // Only reads the summary of the other cell, its items are never decoded
         if (this.isStorageCell(input)) {
             final ICellInventory<?> meInventory = createInventory(((IAEItemStack) input).createItemStack(), null);
             if (!isCellEmpty(meInventory)) {
@@ -143,13 +177,13 @@ public T injectItems(T input, Actionable mode, IActionSource src) {
                 r.setStackSize(r.getStackSize() - remainingItemCount);
                 if (mode == Actionable.MODULATE) {
                     l.setStackSize(l.getStackSize() + remainingItemCount);
-                    this.saveChanges();
+                    this.onItemsAdded(remainingItemCount, false);
                 }
                 return r;
             } else {
                 if (mode == Actionable.MODULATE) {
                     l.setStackSize(l.getStackSize() + input.getStackSize());
-                    this.saveChanges();
+                    this.onItemsAdded(input.getStackSize(), false);
                 }
                 return null;
             }
@@ -168,14 +202,14 @@ public T injectItems(T input, Actionable mode, IActionSource src) {
                         toWrite.setStackSize(remainingItemCount);
 
                         this.cellItems.add(toWrite);
-                        this.saveChanges();
+                        this.onItemsAdded(remainingItemCount, true);
                     }
                     return toReturn;
                 }
 
                 if (mode == Actionable.MODULATE) {
                     this.cellItems.add(input);
-                    this.saveChanges();
+                    this.onItemsAdded(input.getStackSize(), true);
                 }
 
                 return null;
@@ -187,6 +221,36 @@ public T injectItems(T input, Actionable mode, IActionSource src) {
 
     @Override
     public T extractItems(T request, Actionable mode, IActionSource src) {
+        final T extracted = this.extractItem(request, mode);
+        if (mode == Actionable.MODULATE && extracted != null) {
+            this.saveChanges();
+        }
+        return extracted;
+    }
+
+    /**
+     * Extracts all requests, but saves the changes of the cell only once.
+     */
+    @Override
+    public List<T> extractMultiple(List<T> requests, Actionable mode, IActionSource src) {
+        final List<T> extracted = new ArrayList<>(requests.size());
+        boolean changed = false;
+        for (T request : requests) {
+            final T result = this.extractItem(request, mode);
+            changed |= result != null;
+            extracted.add(result);
+        }
+
+        if (mode == Actionable.MODULATE && changed) {
+            this.saveChanges();
+        }
+        return extracted;
+    }
+
+    /**
+     * Extracts a stack without saving the changes of the cell.
+     */
+    private T extractItem(T request, Actionable mode) {
         if (request == null) {
             return null;
         }
@@ -203,13 +267,11 @@ public T extractItems(T request, Actionable mode, IActionSource src) {
                 Results.setStackSize(l.getStackSize());
                 if (mode == Actionable.MODULATE) {
                     l.setStackSize(0);
-                    this.saveChanges();
                 }
             } else {
                 Results.setStackSize(size);
                 if (mode == Actionable.MODULATE) {
                     l.setStackSize(l.getStackSize() - size);
-                    this.saveChanges();
                 }
             }
         }
@@ -223,7 +285,7 @@ public IStorageChannel<T> getChannel() {
     }
 
     @Override
-    protected boolean loadCellItem(CompoundTag compoundTag, int stackSize) {
+    protected T loadCellItem(CompoundTag compoundTag, long stackSize) {
         // Now load the item stack
         final T t;
         try {
@@ -231,23 +293,18 @@ protected boolean loadCellItem(CompoundTag compoundTag, int stackSize) {
             if (t == null) {
                 AELog.warn("Removing item " + compoundTag
                         + " from storage cell because the associated item type couldn't be found.");
-                return false;
+                return null;
             }
         } catch (Throwable ex) {
             if (AEConfig.instance().isRemoveCrashingItemsOnLoad()) {
                 AELog.warn(ex,
                         "Removing item " + compoundTag + " from storage cell because loading the ItemStack crashed.");
-                return false;
+                return null;
             }
             throw ex;
         }
 
         t.setStackSize(stackSize);
-
-        if (stackSize > 0) {
-            this.cellItems.add(t);
-        }
-
-        return true;
+        return t;
     }
 }
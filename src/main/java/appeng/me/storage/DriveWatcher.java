@@ -18,6 +18,8 @@
 
 package appeng.me.storage;
 
+import java.util.List;
+
 import net.minecraft.world.item.ItemStack;
 
 import appeng.api.config.Actionable;
@@ -53,15 +55,32 @@ public T injectItems(final T input, final Actionable type, final IActionSource s
         final T a = super.injectItems(input, type, src);
 
         if (type == Actionable.MODULATE && (a == null || a.getStackSize() != size)) {
-            final CellState newStatus = this.getStatus();
+            this.updateStatus();
+        }
+
+        return a;
+    }
 
-            if (newStatus != this.oldStatus) {
-                this.activityCallback.run();
-                this.oldStatus = newStatus;
+    @Override
+    public List<T> injectMultiple(final List<T> inputs, final Actionable type, final IActionSource src) {
+        final long[] sizes = new long[inputs.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = inputs.get(i) != null ? inputs.get(i).getStackSize() : 0;
+        }
+
+        final List<T> leftovers = super.injectMultiple(inputs, type, src);
+
+        if (type == Actionable.MODULATE) {
+            for (int i = 0; i < sizes.length; i++) {
+                final T leftover = leftovers.get(i);
+                if (sizes[i] > 0 && (leftover == null || leftover.getStackSize() != sizes[i])) {
+                    this.updateStatus();
+                    break;
+                }
             }
         }
 
-        return a;
+        return leftovers;
     }
 
     @Override
@@ -69,14 +88,29 @@ public T extractItems(final T request, final Actionable type, final IActionSourc
         final T a = super.extractItems(request, type, src);
 
         if (type == Actionable.MODULATE && a != null) {
-            final CellState newStatus = this.getStatus();
-
-            if (newStatus != this.oldStatus) {
-                this.activityCallback.run();
-                this.oldStatus = newStatus;
-            }
+            this.updateStatus();
         }
 
         return a;
     }
+
+    @Override
+    public List<T> extractMultiple(final List<T> requests, final Actionable type, final IActionSource src) {
+        final List<T> extracted = super.extractMultiple(requests, type, src);
+
+        if (type == Actionable.MODULATE && extracted.stream().anyMatch(a -> a != null)) {
+            this.updateStatus();
+        }
+
+        return extracted;
+    }
+
+    private void updateStatus() {
+        final CellState newStatus = this.getStatus();
+
+        if (newStatus != this.oldStatus) {
+            this.activityCallback.run();
+            this.oldStatus = newStatus;
+        }
+    }
 }
@@ -0,0 +1,248 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.item.AEItemStack;
+
+/**
+ * Caches the content of an {@link IItemHandler} slot by slot to detect the changes made to it.
+ * <p/>
+ * If the cache is indexed, it also keeps track of the slots holding each item type and of the empty slots, and only
+ * scans a limited number of slots per update in a round-robin fashion. The number of slots scanned grows while changes
+ * are being found and shrinks again while the inventory is idle. Slots that have been modified through the cache's
+ * owner can be marked dirty to have them scanned on the next update regardless.
+ */
+class InventoryCache {
+
+    /**
+     * Inventories with up to this many slots are always scanned completely.
+     */
+    private static final int MIN_SLOTS_PER_SCAN = 64;
+
+    private IAEItemStack[] cachedAeStacks = new IAEItemStack[0];
+    private final IItemHandler itemHandler;
+    private final boolean indexed;
+
+    private final Map<IAEItemStack, IntSortedSet> slotsByType = new HashMap<>();
+    private final IntSortedSet emptySlots = new IntRBTreeSet();
+    private final IntSet dirtySlots = new IntLinkedOpenHashSet();
+    private int slotsPerScan = MIN_SLOTS_PER_SCAN;
+    private int nextSlot;
+
+    InventoryCache(IItemHandler itemHandler, boolean indexed) {
+        this.itemHandler = itemHandler;
+        this.indexed = indexed;
+    }
+
+    boolean isIndexed() {
+        return this.indexed;
+    }
+
+    IItemList<IAEItemStack> getAvailableItems(IItemList<IAEItemStack> out) {
+        for (IAEItemStack stack : this.cachedAeStacks) {
+            out.add(stack);
+        }
+        return out;
+    }
+
+    /**
+     * @return The slots that held the given item type when they were last scanned, in ascending order.
+     */
+    int[] getSlots(IAEItemStack what) {
+        final IntSortedSet slots = this.slotsByType.get(what);
+        return slots != null ? slots.toIntArray() : new int[0];
+    }
+
+    /**
+     * @return The slots that were empty when they were last scanned, in ascending order.
+     */
+    int[] getEmptySlots() {
+        return this.emptySlots.toIntArray();
+    }
+
+    /**
+     * Makes sure that the given slot is scanned on the next update.
+     */
+    void markDirty(int slot) {
+        if (this.indexed) {
+            this.dirtySlots.add(slot);
+        }
+    }
+
+    List<IAEItemStack> update() {
+        final List<IAEItemStack> changes = new ArrayList<>();
+        final int slots = this.itemHandler.getSlots();
+
+        if (!this.indexed || slots <= MIN_SLOTS_PER_SCAN || slots != this.cachedAeStacks.length) {
+            this.resize(slots, changes);
+            for (int slot = 0; slot < slots; slot++) {
+                this.scanSlot(slot, changes);
+            }
+            this.dirtySlots.clear();
+            return changes;
+        }
+
+        final IntIterator dirty = this.dirtySlots.iterator();
+        while (dirty.hasNext()) {
+            final int slot = dirty.nextInt();
+            if (slot < slots) {
+                this.scanSlot(slot, changes);
+            }
+        }
+        this.dirtySlots.clear();
+
+        final int dirtyChanges = changes.size();
+        final int slotsToScan = Math.min(slots, this.slotsPerScan);
+        for (int i = 0; i < slotsToScan; i++) {
+            this.scanSlot(this.nextSlot, changes);
+            this.nextSlot = (this.nextSlot + 1) % slots;
+        }
+
+        // Scan faster while the inventory is being changed by others, and slow down again once it is idle
+        if (changes.size() > dirtyChanges) {
+            this.slotsPerScan = Math.min(slots, this.slotsPerScan * 2);
+        } else {
+            this.slotsPerScan = Math.max(MIN_SLOTS_PER_SCAN, this.slotsPerScan / 2);
+        }
+
+        return changes;
+    }
+
+    private void resize(int slots, List<IAEItemStack> changes) {
+        final int oldSlots = this.cachedAeStacks.length;
+
+        // Make room for new slots
+        if (slots > oldSlots) {
+            this.cachedAeStacks = Arrays.copyOf(this.cachedAeStacks, slots);
+            if (this.indexed) {
+                for (int slot = oldSlots; slot < slots; slot++) {
+                    this.emptySlots.add(slot);
+                }
+            }
+        }
+
+        // Handle cases where the number of slots actually is lower now than before
+        if (slots < oldSlots) {
+            for (int slot = slots; slot < oldSlots; slot++) {
+                final IAEItemStack aeStack = this.cachedAeStacks[slot];
+
+                if (aeStack != null) {
+                    final IAEItemStack a = aeStack.copy();
+                    a.setStackSize(-a.getStackSize());
+                    changes.add(a);
+                }
+
+                this.setCachedStack(slot, null);
+                this.emptySlots.remove(slot);
+            }
+
+            // Reduce the cache size
+            this.cachedAeStacks = Arrays.copyOf(this.cachedAeStacks, slots);
+            this.nextSlot = 0;
+        }
+    }
+
+    private void scanSlot(int slot, List<IAEItemStack> changes) {
+        // Save the old stuff
+        final IAEItemStack oldAeIS = this.cachedAeStacks[slot];
+        final ItemStack newIS = this.itemHandler.getStackInSlot(slot);
+
+        if (oldAeIS != null && oldAeIS.isSameType(newIS)) {
+            this.handleStackSizeChanged(slot, oldAeIS, newIS, changes);
+        } else {
+            this.handleItemChanged(slot, oldAeIS, newIS, changes);
+        }
+    }
+
+    private void handleStackSizeChanged(int slot, IAEItemStack oldAeIS, ItemStack newIS,
+            List<IAEItemStack> changes) {
+        // Still the same item, but amount might have changed
+        final long diff = newIS.getCount() - oldAeIS.getStackSize();
+
+        if (diff != 0) {
+            final IAEItemStack stack = oldAeIS.copy();
+            stack.setStackSize(newIS.getCount());
+
+            this.cachedAeStacks[slot] = stack;
+
+            final IAEItemStack a = stack.copy();
+            a.setStackSize(diff);
+            changes.add(a);
+        }
+    }
+
+    private void handleItemChanged(int slot, IAEItemStack oldAeIS, ItemStack newIS, List<IAEItemStack> changes) {
+        // Completely different item
+        this.setCachedStack(slot, AEItemStack.fromItemStack(newIS));
+
+        // If we had a stack previously in this slot, notify the network about its disappearance
+        if (oldAeIS != null) {
+            oldAeIS.setStackSize(-oldAeIS.getStackSize());
+            changes.add(oldAeIS);
+        }
+
+        // Notify the network about the new stack. Note that this is null if newIS was null
+        if (this.cachedAeStacks[slot] != null) {
+            changes.add(this.cachedAeStacks[slot]);
+        }
+    }
+
+    /**
+     * Replaces the type of item cached for a slot and updates the index accordingly.
+     */
+    private void setCachedStack(int slot, IAEItemStack stack) {
+        final IAEItemStack oldStack = this.cachedAeStacks[slot];
+        this.cachedAeStacks[slot] = stack;
+
+        if (!this.indexed) {
+            return;
+        }
+
+        if (oldStack != null) {
+            final IntSortedSet slots = this.slotsByType.get(oldStack);
+            if (slots != null && slots.remove(slot) && slots.isEmpty()) {
+                this.slotsByType.remove(oldStack);
+            }
+        }
+
+        if (stack != null) {
+            this.slotsByType.computeIfAbsent(stack.copy(), k -> new IntRBTreeSet()).add(slot);
+            this.emptySlots.remove(slot);
+        } else {
+            this.emptySlots.add(slot);
+        }
+    }
+}
@@ -18,8 +18,6 @@
 
 package appeng.me.storage;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -30,6 +28,9 @@
 import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.items.IItemHandler;
 
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+
 import appeng.api.config.Actionable;
 import appeng.api.networking.security.IActionSource;
 import appeng.api.networking.storage.IBaseMonitor;
@@ -40,6 +41,7 @@
 import appeng.api.storage.channels.IItemStorageChannel;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.util.item.AEItemStack;
 
@@ -55,7 +57,7 @@
 
     public ItemHandlerAdapter(IItemHandler itemHandler) {
         this.itemHandler = itemHandler;
-        this.cache = new InventoryCache(this.itemHandler);
+        this.cache = new InventoryCache(this.itemHandler, AEConfig.instance().isIndexedInventoryScan());
     }
 
     /**
@@ -72,9 +74,13 @@ public IAEItemStack injectItems(IAEItemStack iox, Actionable type, IActionSource
         int slotCount = this.itemHandler.getSlots();
         boolean simulate = type == Actionable.SIMULATE;
 
-        // This uses a brute force approach and tries to jam it in every slot the inventory exposes.
-        for (int i = 0; i < slotCount && !remaining.isEmpty(); i++) {
-            remaining = this.itemHandler.insertItem(i, remaining, simulate);
+        if (this.cache.isIndexed()) {
+            remaining = this.insertIntoKnownSlots(iox, remaining, simulate);
+        } else {
+            // This uses a brute force approach and tries to jam it in every slot the inventory exposes.
+            for (int i = 0; i < slotCount && !remaining.isEmpty(); i++) {
+                remaining = this.itemHandler.insertItem(i, remaining, simulate);
+            }
         }
 
         // At this point, we still have some items left...
@@ -90,6 +96,40 @@ public IAEItemStack injectItems(IAEItemStack iox, Actionable type, IActionSource
         return AEItemStack.fromItemStack(remaining);
     }
 
+    /**
+     * Inserts into the slots already holding the item first, then into empty slots, and only then tries all other
+     * slots of the inventory.
+     */
+    private ItemStack insertIntoKnownSlots(IAEItemStack what, ItemStack remaining, boolean simulate) {
+        final IntSet triedSlots = new IntOpenHashSet();
+
+        for (int slot : this.cache.getSlots(what)) {
+            remaining = this.insertIntoSlot(slot, remaining, simulate, triedSlots);
+        }
+        for (int slot : this.cache.getEmptySlots()) {
+            remaining = this.insertIntoSlot(slot, remaining, simulate, triedSlots);
+        }
+
+        final int slotCount = this.itemHandler.getSlots();
+        for (int slot = 0; slot < slotCount && !remaining.isEmpty(); slot++) {
+            remaining = this.insertIntoSlot(slot, remaining, simulate, triedSlots);
+        }
+
+        return remaining;
+    }
+
+    private ItemStack insertIntoSlot(int slot, ItemStack stack, boolean simulate, IntSet triedSlots) {
+        if (stack.isEmpty() || slot >= this.itemHandler.getSlots() || !triedSlots.add(slot)) {
+            return stack;
+        }
+
+        final ItemStack remaining = this.itemHandler.insertItem(slot, stack, simulate);
+        if (!simulate && remaining != stack) {
+            this.cache.markDirty(slot);
+        }
+        return remaining;
+    }
+
     @Override
     public IAEItemStack extractItems(IAEItemStack request, Actionable mode, IActionSource src) {
         int remainingSize = Ints.saturatedCast(request.getStackSize());
@@ -99,10 +139,24 @@ public IAEItemStack extractItems(IAEItemStack request, Actionable mode, IActionS
 
         final boolean simulate = mode == Actionable.SIMULATE;
 
-        for (int i = 0; i < this.itemHandler.getSlots(); i++) {
+        // The indexed cache only knows the slots it has already scanned, but the network only knows the items in those
+        // slots as well
+        final int[] slots = this.cache.isIndexed() ? this.cache.getSlots(request) : null;
+        final int slotCount = slots != null ? slots.length : this.itemHandler.getSlots();
+
+        for (int s = 0; s < slotCount; s++) {
+            final int i = slots != null ? slots[s] : s;
+            if (i >= this.itemHandler.getSlots()) {
+                continue;
+            }
+
             ItemStack stackInInventorySlot = this.itemHandler.getStackInSlot(i);
 
             if (!request.isSameType(stackInInventorySlot)) {
+                if (slots != null) {
+                    // The slot was changed by someone else since it was last scanned
+                    this.cache.markDirty(i);
+                }
                 continue;
             }
 
@@ -150,6 +204,10 @@ public IAEItemStack extractItems(IAEItemStack request, Actionable mode, IActionS
                 }
             } while (!simulate && !extracted.isEmpty() && remainingCurrentSlot > 0);
 
+            if (!simulate) {
+                this.cache.markDirty(i);
+            }
+
             remainingSize -= stackSizeCurrentSlot - remainingCurrentSlot;
 
             // Done?
@@ -219,96 +277,4 @@ private void postDifference(Iterable<IAEItemStack> a) {
         }
     }
 
-    private static class InventoryCache {
-        private IAEItemStack[] cachedAeStacks = new IAEItemStack[0];
-        private final IItemHandler itemHandler;
-
-        public InventoryCache(IItemHandler itemHandler) {
-            this.itemHandler = itemHandler;
-        }
-
-        public IItemList<IAEItemStack> getAvailableItems(IItemList<IAEItemStack> out) {
-            Arrays.stream(this.cachedAeStacks).forEach(out::add);
-            return out;
-        }
-
-        public List<IAEItemStack> update() {
-            final List<IAEItemStack> changes = new ArrayList<>();
-            final int slots = this.itemHandler.getSlots();
-
-            // Make room for new slots
-            if (slots > this.cachedAeStacks.length) {
-                this.cachedAeStacks = Arrays.copyOf(this.cachedAeStacks, slots);
-            }
-
-            for (int slot = 0; slot < slots; slot++) {
-                // Save the old stuff
-                final IAEItemStack oldAeIS = this.cachedAeStacks[slot];
-                final ItemStack newIS = this.itemHandler.getStackInSlot(slot);
-
-                this.handlePossibleSlotChanges(slot, oldAeIS, newIS, changes);
-            }
-
-            // Handle cases where the number of slots actually is lower now than before
-            if (slots < this.cachedAeStacks.length) {
-                for (int slot = slots; slot < this.cachedAeStacks.length; slot++) {
-                    final IAEItemStack aeStack = this.cachedAeStacks[slot];
-
-                    if (aeStack != null) {
-                        final IAEItemStack a = aeStack.copy();
-                        a.setStackSize(-a.getStackSize());
-                        changes.add(a);
-                    }
-                }
-
-                // Reduce the cache size
-                this.cachedAeStacks = Arrays.copyOf(this.cachedAeStacks, slots);
-            }
-
-            return changes;
-        }
-
-        private void handlePossibleSlotChanges(int slot, IAEItemStack oldAeIS, ItemStack newIS,
-                List<IAEItemStack> changes) {
-            if (oldAeIS != null && oldAeIS.isSameType(newIS)) {
-                this.handleStackSizeChanged(slot, oldAeIS, newIS, changes);
-            } else {
-                this.handleItemChanged(slot, oldAeIS, newIS, changes);
-            }
-        }
-
-        private void handleStackSizeChanged(int slot, IAEItemStack oldAeIS, ItemStack newIS,
-                List<IAEItemStack> changes) {
-            // Still the same item, but amount might have changed
-            final long diff = newIS.getCount() - oldAeIS.getStackSize();
-
-            if (diff != 0) {
-                final IAEItemStack stack = oldAeIS.copy();
-                stack.setStackSize(newIS.getCount());
-
-                this.cachedAeStacks[slot] = stack;
-
-                final IAEItemStack a = stack.copy();
-                a.setStackSize(diff);
-                changes.add(a);
-            }
-        }
-
-        private void handleItemChanged(int slot, IAEItemStack oldAeIS, ItemStack newIS, List<IAEItemStack> changes) {
-            // Completely different item
-            this.cachedAeStacks[slot] = AEItemStack.fromItemStack(newIS);
-
-            // If we had a stack previously in this slot, notify the network about its disappearance
-            if (oldAeIS != null) {
-                oldAeIS.setStackSize(-oldAeIS.getStackSize());
-                changes.add(oldAeIS);
-            }
-
-            // Notify the network about the new stack. Note that this is null if newIS was null
-            if (this.cachedAeStacks[slot] != null) {
-                changes.add(this.cachedAeStacks[slot]);
-            }
-        }
-    }
-
 }
@@ -20,8 +20,12 @@
 
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.Maps;
+
+import appeng.api.config.FuzzyMode;
 import appeng.api.networking.storage.IStackWatcher;
 import appeng.api.networking.storage.IStackWatcherHost;
 import appeng.api.storage.data.IAEStack;
@@ -35,6 +39,7 @@ public class ItemWatcher implements IStackWatcher {
     private final StorageService service;
     private final IStackWatcherHost myObject;
     private final Set<IAEStack> myInterests = new HashSet<>();
+    private final Set<Map.Entry<IAEStack, FuzzyMode>> myFuzzyInterests = new HashSet<>();
 
     public ItemWatcher(final StorageService service, final IStackWatcherHost host) {
         this.service = service;
@@ -51,12 +56,28 @@ public boolean add(final IAEStack e) {
             return false;
         }
 
-        return this.myInterests.add(e.copy()) && this.service.getInterestManager().put(e, this);
+        return this.myInterests.add(e.copy()) && this.service.getInterestManager().put(e, null, this);
+    }
+
+    @Override
+    public boolean addFuzzy(final IAEStack e, final FuzzyMode fuzzyMode) {
+        final IAEStack copy = e.copy();
+        if (!this.myFuzzyInterests.add(Maps.immutableEntry(copy, fuzzyMode))) {
+            return false;
+        }
+
+        return this.service.getInterestManager().put(copy, fuzzyMode, this);
     }
 
     @Override
     public boolean remove(final IAEStack o) {
-        return this.myInterests.remove(o) && this.service.getInterestManager().remove(o, this);
+        return this.myInterests.remove(o) && this.service.getInterestManager().remove(o, null, this);
+    }
+
+    @Override
+    public boolean removeFuzzy(final IAEStack o, final FuzzyMode fuzzyMode) {
+        return this.myFuzzyInterests.remove(Maps.immutableEntry(o, fuzzyMode))
+                && this.service.getInterestManager().remove(o, fuzzyMode, this);
     }
 
     @Override
@@ -64,8 +85,16 @@ public void reset() {
         final Iterator<IAEStack> i = this.myInterests.iterator();
 
         while (i.hasNext()) {
-            this.service.getInterestManager().remove(i.next(), this);
+            this.service.getInterestManager().remove(i.next(), null, this);
             i.remove();
         }
+
+        final Iterator<Map.Entry<IAEStack, FuzzyMode>> fi = this.myFuzzyInterests.iterator();
+
+        while (fi.hasNext()) {
+            final Map.Entry<IAEStack, FuzzyMode> interest = fi.next();
+            this.service.getInterestManager().remove(interest.getKey(), interest.getValue(), this);
+            fi.remove();
+        }
     }
 }
@@ -18,6 +18,11 @@
 
 package appeng.me.storage;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
 import appeng.api.config.AccessRestriction;
 import appeng.api.config.Actionable;
 import appeng.api.config.IncludeExclude;
@@ -100,6 +105,42 @@ public T extractItems(final T request, final Actionable type, final IActionSourc
         return this.internal.extractItems(request, type, src);
     }
 
+    /**
+     * Forwards the accepted stacks to the internal inventory as a single batch.
+     */
+    @Override
+    public List<T> injectMultiple(final List<T> inputs, final Actionable type, final IActionSource src) {
+        final boolean[] accepted = new boolean[inputs.size()];
+        final List<T> batch = new ArrayList<>(inputs.size());
+        for (int i = 0; i < accepted.length; i++) {
+            final T input = inputs.get(i);
+            accepted[i] = input != null && this.canAccept(input);
+            if (accepted[i]) {
+                batch.add(input);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return new ArrayList<>(inputs);
+        }
+
+        final Iterator<T> batchLeftovers = this.internal.injectMultiple(batch, type, src).iterator();
+        final List<T> leftovers = new ArrayList<>(inputs.size());
+        for (int i = 0; i < accepted.length; i++) {
+            leftovers.add(accepted[i] ? batchLeftovers.next() : inputs.get(i));
+        }
+        return leftovers;
+    }
+
+    @Override
+    public List<T> extractMultiple(final List<T> requests, final Actionable type, final IActionSource src) {
+        if (!this.hasReadAccess) {
+            return new ArrayList<>(Collections.nCopies(requests.size(), null));
+        }
+
+        return this.internal.extractMultiple(requests, type, src);
+    }
+
     @Override
     public IItemList<T> getAvailableItems(final IItemList<T> out) {
         if (!this.hasReadAccess) {
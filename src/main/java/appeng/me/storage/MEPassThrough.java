@@ -18,6 +18,8 @@
 
 package appeng.me.storage;
 
+import java.util.List;
+
 import appeng.api.config.AccessRestriction;
 import appeng.api.config.Actionable;
 import appeng.api.networking.security.IActionSource;
@@ -55,6 +57,16 @@ public T extractItems(final T request, final Actionable type, final IActionSourc
         return this.internal.extractItems(request, type, src);
     }
 
+    @Override
+    public List<T> injectMultiple(final List<T> inputs, final Actionable type, final IActionSource src) {
+        return this.internal.injectMultiple(inputs, type, src);
+    }
+
+    @Override
+    public List<T> extractMultiple(final List<T> requests, final Actionable type, final IActionSource src) {
+        return this.internal.extractMultiple(requests, type, src);
+    }
+
     @Override
     public IItemList<T> getAvailableItems(final IItemList<T> out) {
         return this.internal.getAvailableItems(out);
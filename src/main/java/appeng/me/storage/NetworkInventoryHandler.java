@@ -18,15 +18,18 @@
 
 package appeng.me.storage;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+
 import appeng.api.config.Actionable;
 import appeng.api.config.SecurityPermissions;
 import appeng.api.networking.IGrid;
@@ -37,19 +40,23 @@
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
+import appeng.me.helpers.ReentrancyGuard;
 import appeng.me.service.SecurityService;
 
 public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHandler<T> {
 
-    private static final ThreadLocal<Deque> DEPTH_MOD = new ThreadLocal<>();
-    private static final ThreadLocal<Deque> DEPTH_SIM = new ThreadLocal<>();
+    private static final ReentrancyGuard GUARD_MOD = new ReentrancyGuard("modulating storage access");
+    private static final ReentrancyGuard GUARD_SIM = new ReentrancyGuard("simulated storage access");
     private static final Comparator<Integer> PRIORITY_SORTER = (o1, o2) -> Integer.compare(o2, o1);
 
-    private static int currentPass = 0;
     private final IStorageChannel<T> myChannel;
     private final SecurityService security;
     private final NavigableMap<Integer, List<IMEInventoryHandler<T>>> priorityInventory;
-    private int myPass = 0;
+    private final NetworkInventoryRoutes<T> routes = new NetworkInventoryRoutes<>();
+    private final ReentrancyGuard.Entry modulateEntry = new ReentrancyGuard.Entry(this);
+    private final ReentrancyGuard.Entry simulateEntry = new ReentrancyGuard.Entry(this);
+    private final ReentrancyGuard.Entry iterationEntry = new ReentrancyGuard.Entry(this);
+    private boolean routesValid = false;
 
     public NetworkInventoryHandler(final IStorageChannel<T> chan, SecurityService security) {
         this.myChannel = chan;
@@ -59,27 +66,120 @@ public NetworkInventoryHandler(final IStorageChannel<T> chan, SecurityService se
 
     public void addNewStorage(final IMEInventoryHandler<T> h) {
         this.priorityInventory.computeIfAbsent(h.getPriority(), k -> new ArrayList<>()).add(h);
+        this.routesValid = false;
+    }
+
+    /**
+     * Removes a handler that was previously added via {@link #addNewStorage(IMEInventoryHandler)}.
+     */
+    public void removeStorage(final IMEInventoryHandler<T> h) {
+        final Iterator<List<IMEInventoryHandler<T>>> it = this.priorityInventory.values().iterator();
+        while (it.hasNext()) {
+            final List<IMEInventoryHandler<T>> bucket = it.next();
+            if (bucket.remove(h)) {
+                if (bucket.isEmpty()) {
+                    it.remove();
+                }
+                this.routesValid = false;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forgets the injection routes of all item types that were added to the network in the given changes, since they
+     * may now be present in handlers that the routing index doesn't know about.
+     */
+    public void invalidateRoutes(Iterable<? extends IAEStack<T>> changes) {
+        this.routes.invalidate(changes);
     }
 
     @Override
     public T injectItems(T input, final Actionable type, final IActionSource src) {
-        if (this.diveList(this, type)) {
+        if (!this.dive(type)) {
             return input;
         }
 
-        if (this.testPermission(src, SecurityPermissions.INJECT)) {
-            this.surface(this, type);
-            return input;
+        try {
+            if (this.testPermission(src, SecurityPermissions.INJECT)) {
+                return input;
+            }
+
+            return this.injectIntoNetwork(input, type, src);
+        } finally {
+            this.surface(type);
         }
+    }
 
-        for (final List<IMEInventoryHandler<T>> invList : this.priorityInventory.values()) {
-            Iterator<IMEInventoryHandler<T>> ii = invList.iterator();
-            while (ii.hasNext() && input != null) {
-                final IMEInventoryHandler<T> inv = ii.next();
+    /**
+     * Injects all stacks while entering the network and checking permissions only once.
+     */
+    @Override
+    public List<T> injectMultiple(final List<T> inputs, final Actionable type, final IActionSource src) {
+        if (!this.dive(type)) {
+            return new ArrayList<>(inputs);
+        }
 
-                if (inv.validForPass(1) && inv.canAccept(input)
-                        && (inv.isPrioritized(input) || inv.extractItems(input, Actionable.SIMULATE, src) != null)) {
-                    input = inv.injectItems(input, type, src);
+        try {
+            if (this.testPermission(src, SecurityPermissions.INJECT)) {
+                return new ArrayList<>(inputs);
+            }
+
+            return this.injectIntoNetwork(inputs, type, src);
+        } finally {
+            this.surface(type);
+        }
+    }
+
+    private T injectIntoNetwork(T input, final Actionable type, final IActionSource src) {
+        if (input == null) {
+            return null;
+        }
+
+        if (!this.routesValid) {
+            this.routes.rebuild(this.priorityInventory.values());
+            this.routesValid = true;
+        }
+
+        // Handlers that already contain the item or are partitioned for it. If the item type is unknown, we scan all
+        // handlers during the first pass and remember the result for the next injection.
+        List<IMEInventoryHandler<T>> route = this.routes.getRoute(input);
+        final boolean fullScan = route == null;
+        // The full scan continues after the input was stored, so the route also contains the remaining handlers
+        final T probe = fullScan ? input.copy() : null;
+        if (fullScan) {
+            route = this.routes.createRoute(input);
+        }
+        List<IMEInventoryHandler<T>> newTargets = null;
+
+        int routeIndex = 0;
+        int bucketEnd = 0;
+        for (final List<IMEInventoryHandler<T>> invList : this.priorityInventory.values()) {
+            bucketEnd += invList.size();
+
+            if (fullScan) {
+                for (final IMEInventoryHandler<T> inv : invList) {
+                    if (this.isFirstPassTarget(inv, probe, src)) {
+                        route.add(inv);
+                        if (input != null) {
+                            input = inv.injectItems(input, type, src);
+                        }
+                    }
+                }
+            } else {
+                while (routeIndex < route.size() && input != null) {
+                    final IMEInventoryHandler<T> inv = route.get(routeIndex);
+                    if (this.routes.getPosition(inv) >= bucketEnd) {
+                        break; // Belongs to a bucket with lower priority
+                    }
+
+                    if (this.isFirstPassTarget(inv, input, src)) {
+                        input = inv.injectItems(input, type, src);
+                        routeIndex++;
+                    } else {
+                        // The handler no longer contains the item
+                        route.remove(routeIndex);
+                    }
                 }
             }
 
@@ -89,29 +189,210 @@ public T injectItems(T input, final Actionable type, final IActionSource src) {
             // stateless we will just report twice
             // the amount of storable items.
             // ignores craftingcache on the second pass.
-            ii = invList.iterator();
+            final Iterator<IMEInventoryHandler<T>> ii = invList.iterator();
             while (ii.hasNext() && input != null) {
                 final IMEInventoryHandler<T> inv = ii.next();
 
                 if (inv.validForPass(2) && inv.canAccept(input) && !inv.isPrioritized(input)) {
+                    final long before = input.getStackSize();
                     input = inv.injectItems(input, type, src);
+
+                    // The handler now contains the item and should be considered in the first pass from now on
+                    if (type == Actionable.MODULATE && (input == null || input.getStackSize() < before)) {
+                        if (newTargets == null) {
+                            newTargets = new ArrayList<>(1);
+                        }
+                        newTargets.add(inv);
+                    }
                 }
             }
         }
 
-        this.surface(this, type);
+        if (newTargets != null) {
+            for (IMEInventoryHandler<T> inv : newTargets) {
+                this.routes.addToRoute(route, inv);
+            }
+        }
 
         return input;
     }
 
-    private boolean diveList(final NetworkInventoryHandler<T> networkInventoryHandler, final Actionable type) {
-        final Deque cDepth = this.getDepth(type);
-        if (cDepth.contains(networkInventoryHandler)) {
-            return true;
+    /**
+     * Injects a batch with the same passes as {@link #injectIntoNetwork(IAEStack, Actionable, IActionSource)}, but
+     * hands every handler all stacks it is a target for at once.
+     */
+    private List<T> injectIntoNetwork(final List<T> inputs, final Actionable type, final IActionSource src) {
+        final int count = inputs.size();
+        final List<T> remaining = new ArrayList<>(count);
+        final List<T> probes = new ArrayList<>(count);
+        for (final T input : inputs) {
+            remaining.add(input);
+            probes.add(input != null ? input.copy() : null);
         }
 
-        cDepth.push(this);
-        return false;
+        if (!this.routesValid) {
+            this.routes.rebuild(this.priorityInventory.values());
+            this.routesValid = true;
+        }
+
+        // Inputs of the same type share their route. Only the first of them builds an unknown route by a full scan,
+        // the others follow the handlers it added.
+        final List<List<IMEInventoryHandler<T>>> inputRoutes = new ArrayList<>(count);
+        final boolean[] fullScan = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            List<IMEInventoryHandler<T>> route = null;
+            if (probes.get(i) != null) {
+                route = this.routes.getRoute(probes.get(i));
+                if (route == null) {
+                    route = this.routes.createRoute(probes.get(i));
+                    fullScan[i] = true;
+                }
+            }
+            inputRoutes.add(route);
+        }
+
+        final Map<List<IMEInventoryHandler<T>>, List<IMEInventoryHandler<T>>> staleTargets = new IdentityHashMap<>();
+        final Map<List<IMEInventoryHandler<T>>, List<IMEInventoryHandler<T>>> newTargets = new IdentityHashMap<>();
+        final Map<IMEInventoryHandler<T>, IntList> firstPass = new IdentityHashMap<>();
+
+        int bucketStart = 0;
+        for (final List<IMEInventoryHandler<T>> invList : this.priorityInventory.values()) {
+            final int bucketEnd = bucketStart + invList.size();
+
+            firstPass.clear();
+            for (int i = 0; i < count; i++) {
+                final T probe = probes.get(i);
+                final List<IMEInventoryHandler<T>> route = inputRoutes.get(i);
+
+                if (fullScan[i]) {
+                    // The full scan continues after the input was stored, so the route also contains the remaining
+                    // handlers
+                    for (final IMEInventoryHandler<T> inv : invList) {
+                        if (this.isFirstPassTarget(inv, probe, src)) {
+                            route.add(inv);
+                            firstPass.computeIfAbsent(inv, k -> new IntArrayList(1)).add(i);
+                        }
+                    }
+                } else if (remaining.get(i) != null) {
+                    for (final IMEInventoryHandler<T> inv : route) {
+                        final int position = this.routes.getPosition(inv);
+                        if (position < bucketStart || position >= bucketEnd) {
+                            continue; // Belongs to another bucket
+                        }
+
+                        if (this.isFirstPassTarget(inv, probe, src)) {
+                            firstPass.computeIfAbsent(inv, k -> new IntArrayList(1)).add(i);
+                        } else {
+                            // The handler no longer contains the item
+                            staleTargets.computeIfAbsent(route, k -> new ArrayList<>(1)).add(inv);
+                        }
+                    }
+                }
+            }
+
+            for (final IMEInventoryHandler<T> inv : invList) {
+                final IntList targets = firstPass.get(inv);
+                if (targets != null) {
+                    this.injectInto(inv, targets, remaining, type, src);
+                }
+            }
+
+            // See the single stack variant for why prioritized inventories are skipped in the second pass
+            for (final IMEInventoryHandler<T> inv : invList) {
+                if (!inv.validForPass(2)) {
+                    continue;
+                }
+
+                final IntList targets = new IntArrayList();
+                for (int i = 0; i < count; i++) {
+                    final T input = remaining.get(i);
+                    if (input != null && inv.canAccept(input) && !inv.isPrioritized(input)) {
+                        targets.add(i);
+                    }
+                }
+
+                final IntList accepted = this.injectInto(inv, targets, remaining, type, src);
+
+                // The handler now contains the items and should be considered in the first pass from now on
+                if (type == Actionable.MODULATE) {
+                    for (int k = 0; k < accepted.size(); k++) {
+                        newTargets.computeIfAbsent(inputRoutes.get(accepted.getInt(k)), r -> new ArrayList<>(1))
+                                .add(inv);
+                    }
+                }
+            }
+
+            bucketStart = bucketEnd;
+        }
+
+        staleTargets.forEach(List::removeAll);
+        newTargets.forEach((route, targets) -> {
+            for (final IMEInventoryHandler<T> inv : targets) {
+                this.routes.addToRoute(route, inv);
+            }
+        });
+
+        return remaining;
+    }
+
+    /**
+     * Injects the remaining stacks at the given indices into a single handler as one batch.
+     *
+     * @return The indices of the stacks the handler took items of.
+     */
+    private IntList injectInto(final IMEInventoryHandler<T> inv, final IntList indices, final List<T> remaining,
+            final Actionable type, final IActionSource src) {
+        final IntList batchIndices = new IntArrayList(indices.size());
+        final List<T> batch = new ArrayList<>(indices.size());
+        for (int k = 0; k < indices.size(); k++) {
+            final T input = remaining.get(indices.getInt(k));
+            if (input != null) {
+                batchIndices.add(indices.getInt(k));
+                batch.add(input);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return batchIndices;
+        }
+
+        final long[] before = new long[batch.size()];
+        for (int k = 0; k < before.length; k++) {
+            before[k] = batch.get(k).getStackSize();
+        }
+
+        final List<T> leftovers = inv.injectMultiple(batch, type, src);
+        final IntList accepted = new IntArrayList(batch.size());
+        for (int k = 0; k < before.length; k++) {
+            final T leftover = leftovers.get(k);
+            remaining.set(batchIndices.getInt(k), leftover);
+            if (leftover == null || leftover.getStackSize() < before[k]) {
+                accepted.add(batchIndices.getInt(k));
+            }
+        }
+        return accepted;
+    }
+
+    private boolean isFirstPassTarget(final IMEInventoryHandler<T> inv, final T input, final IActionSource src) {
+        return inv.validForPass(1) && inv.canAccept(input)
+                && (inv.isPrioritized(input) || inv.extractItems(input, Actionable.SIMULATE, src) != null);
+    }
+
+    /**
+     * @return False if this network is already processing an operation of the same mode further up the call stack.
+     */
+    private boolean dive(final Actionable type) {
+        if (type == Actionable.MODULATE) {
+            return GUARD_MOD.enter(this.modulateEntry);
+        }
+        return GUARD_SIM.enter(this.simulateEntry);
+    }
+
+    /**
+     * @return True if the source is allowed to perform actions requiring the given permission on this network.
+     */
+    public boolean hasPermission(final IActionSource src, final SecurityPermissions permission) {
+        return !this.testPermission(src, permission);
     }
 
     private boolean testPermission(final IActionSource src, final SecurityPermissions permission) {
@@ -140,35 +421,109 @@ private boolean testPermission(final IActionSource src, final SecurityPermission
         return false;
     }
 
-    private void surface(final NetworkInventoryHandler<T> networkInventoryHandler, final Actionable type) {
-        if (this.getDepth(type).pop() != this) {
-            throw new IllegalStateException("Invalid Access to Networked Storage API detected.");
+    private void surface(final Actionable type) {
+        if (type == Actionable.MODULATE) {
+            GUARD_MOD.exit(this.modulateEntry);
+        } else {
+            GUARD_SIM.exit(this.simulateEntry);
         }
     }
 
-    private Deque getDepth(final Actionable type) {
-        final ThreadLocal<Deque> depth = type == Actionable.MODULATE ? DEPTH_MOD : DEPTH_SIM;
+    @Override
+    public T extractItems(T request, final Actionable mode, final IActionSource src) {
+        if (!this.dive(mode)) {
+            return null;
+        }
 
-        Deque s = depth.get();
+        try {
+            if (this.testPermission(src, SecurityPermissions.EXTRACT)) {
+                return null;
+            }
 
-        if (s == null) {
-            depth.set(s = new ArrayDeque<>());
+            return this.extractFromNetwork(request, mode, src);
+        } finally {
+            this.surface(mode);
         }
-
-        return s;
     }
 
+    /**
+     * Extracts all requests while entering the network and checking permissions only once.
+     */
     @Override
-    public T extractItems(T request, final Actionable mode, final IActionSource src) {
-        if (this.diveList(this, mode)) {
-            return null;
+    public List<T> extractMultiple(final List<T> requests, final Actionable mode, final IActionSource src) {
+        final List<T> extracted = new ArrayList<>(requests.size());
+        if (!this.dive(mode)) {
+            requests.forEach(request -> extracted.add(null));
+            return extracted;
         }
 
-        if (this.testPermission(src, SecurityPermissions.EXTRACT)) {
-            this.surface(this, mode);
-            return null;
+        try {
+            if (this.testPermission(src, SecurityPermissions.EXTRACT)) {
+                requests.forEach(request -> extracted.add(null));
+                return extracted;
+            }
+
+            return this.extractFromNetwork(requests, mode, src);
+        } finally {
+            this.surface(mode);
+        }
+    }
+
+    /**
+     * Extracts a batch in the same handler order as {@link #extractFromNetwork(IAEStack, Actionable, IActionSource)},
+     * but asks every handler for all stacks that are still missing at once.
+     */
+    private List<T> extractFromNetwork(final List<T> requests, final Actionable mode, final IActionSource src) {
+        final int count = requests.size();
+        final List<T> outputs = new ArrayList<>(count);
+        for (final T request : requests) {
+            T output = null;
+            if (request != null) {
+                output = request.copy();
+                output.setStackSize(0);
+            }
+            outputs.add(output);
+        }
+
+        for (final List<IMEInventoryHandler<T>> invList : this.priorityInventory.descendingMap().values()) {
+            for (final IMEInventoryHandler<T> inv : invList) {
+                final IntList indices = new IntArrayList(count);
+                final List<T> batch = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    final T request = requests.get(i);
+                    if (request != null && outputs.get(i).getStackSize() < request.getStackSize()) {
+                        final T missing = request.copy();
+                        missing.setStackSize(request.getStackSize() - outputs.get(i).getStackSize());
+                        indices.add(i);
+                        batch.add(missing);
+                    }
+                }
+
+                if (batch.isEmpty()) {
+                    return this.removeEmptyOutputs(outputs);
+                }
+
+                final List<T> extracted = inv.extractMultiple(batch, mode, src);
+                for (int k = 0; k < indices.size(); k++) {
+                    outputs.get(indices.getInt(k)).add(extracted.get(k));
+                }
+            }
+        }
+
+        return this.removeEmptyOutputs(outputs);
+    }
+
+    private List<T> removeEmptyOutputs(final List<T> outputs) {
+        for (int i = 0; i < outputs.size(); i++) {
+            final T output = outputs.get(i);
+            if (output != null && output.getStackSize() <= 0) {
+                outputs.set(i, null);
+            }
         }
+        return outputs;
+    }
 
+    private T extractFromNetwork(T request, final Actionable mode, final IActionSource src) {
         final Iterator<List<IMEInventoryHandler<T>>> i = this.priorityInventory.descendingMap().values().iterator();
 
         final T output = request.copy();
@@ -188,8 +543,6 @@ public T extractItems(T request, final Actionable mode, final IActionSource src)
             }
         }
 
-        this.surface(this, mode);
-
         if (output.getStackSize() <= 0) {
             return null;
         }
@@ -199,33 +552,21 @@ public T extractItems(T request, final Actionable mode, final IActionSource src)
 
     @Override
     public IItemList<T> getAvailableItems(IItemList<T> out) {
-        if (this.diveIteration(this, Actionable.SIMULATE)) {
+        // Every network is only listed once, even if it is reachable through multiple storage buses
+        if (!GUARD_SIM.enterOnce(this.iterationEntry)) {
             return out;
         }
 
-        // for (Entry<Integer, IMEInventoryHandler<T>> h : priorityInventory.entries())
-        for (final List<IMEInventoryHandler<T>> i : this.priorityInventory.values()) {
-            for (final IMEInventoryHandler<T> j : i) {
-                out = j.getAvailableItems(out);
+        try {
+            for (final List<IMEInventoryHandler<T>> i : this.priorityInventory.values()) {
+                for (final IMEInventoryHandler<T> j : i) {
+                    out = j.getAvailableItems(out);
+                }
             }
+            return out;
+        } finally {
+            GUARD_SIM.exit(this.iterationEntry);
         }
-
-        this.surface(this, Actionable.SIMULATE);
-
-        return out;
-    }
-
-    private boolean diveIteration(final NetworkInventoryHandler<T> networkInventoryHandler, final Actionable type) {
-        final Deque cDepth = this.getDepth(type);
-        if (cDepth.isEmpty()) {
-            currentPass++;
-        } else if (currentPass == this.myPass) {
-            return true;
-        }
-        this.myPass = currentPass;
-
-        cDepth.push(this);
-        return false;
     }
 
     @Override
@@ -0,0 +1,145 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+import appeng.api.storage.IMEInventoryHandler;
+import appeng.api.storage.data.IAEStack;
+
+/**
+ * Remembers, per stored item type, which handlers of a {@link NetworkInventoryHandler} already contain that type or
+ * are partitioned for it. This allows the first injection pass to go straight to those handlers instead of issuing a
+ * simulated extraction against every handler of the network.
+ * <p/>
+ * Routes are only hints. Every candidate is still verified before items are injected into it, and handlers that no
+ * longer qualify are dropped from the route. Routes of item types that may have appeared in a handler without this
+ * index noticing are invalidated through {@link #invalidate(Iterable)}, which causes the next injection of that type to
+ * fall back to a full scan.
+ */
+class NetworkInventoryRoutes<T extends IAEStack<T>> {
+
+    /**
+     * Routes of the item types that were injected least recently are forgotten beyond this number.
+     */
+    private static final int MAX_ROUTES = 4096;
+
+    /**
+     * Position of each handler in the iteration order of the priority buckets.
+     */
+    private final Reference2IntMap<IMEInventoryHandler<T>> positions = new Reference2IntOpenHashMap<>();
+
+    /**
+     * Handlers that qualified for the first injection pass, sorted by their position.
+     */
+    private final Map<T, List<IMEInventoryHandler<T>>> routes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<T, List<IMEInventoryHandler<T>>> eldest) {
+            return this.size() > MAX_ROUTES;
+        }
+    };
+
+    NetworkInventoryRoutes() {
+        this.positions.defaultReturnValue(-1);
+    }
+
+    /**
+     * Recomputes the handler positions after the set of handlers changed. All known routes are forgotten.
+     */
+    void rebuild(Collection<List<IMEInventoryHandler<T>>> priorityBuckets) {
+        this.positions.clear();
+        this.routes.clear();
+
+        int position = 0;
+        for (List<IMEInventoryHandler<T>> bucket : priorityBuckets) {
+            for (IMEInventoryHandler<T> handler : bucket) {
+                this.positions.put(handler, position++);
+            }
+        }
+    }
+
+    int getPosition(IMEInventoryHandler<T> handler) {
+        return this.positions.getInt(handler);
+    }
+
+    /**
+     * @return The known route for the given item type, or null if the type has to be routed by a full scan.
+     */
+    @Nullable
+    List<IMEInventoryHandler<T>> getRoute(T what) {
+        return this.routes.get(what);
+    }
+
+    /**
+     * Starts a new, empty route for an item type that was routed by a full scan.
+     */
+    List<IMEInventoryHandler<T>> createRoute(T what) {
+        final List<IMEInventoryHandler<T>> route = new ArrayList<>(2);
+        this.routes.put(what.copy(), route);
+        return route;
+    }
+
+    /**
+     * Adds a handler to a route while keeping the route sorted by handler position.
+     */
+    void addToRoute(List<IMEInventoryHandler<T>> route, IMEInventoryHandler<T> handler) {
+        final int position = this.getPosition(handler);
+        if (position < 0) {
+            return;
+        }
+
+        int i = 0;
+        while (i < route.size()) {
+            final int otherPosition = this.getPosition(route.get(i));
+            if (otherPosition == position) {
+                return; // Already part of the route
+            } else if (otherPosition > position) {
+                break;
+            }
+            i++;
+        }
+        route.add(i, handler);
+    }
+
+    /**
+     * Forgets the routes for the given item types. Their next injection will perform a full scan.
+     */
+    void invalidate(Iterable<? extends IAEStack<T>> changes) {
+        if (this.routes.isEmpty()) {
+            return;
+        }
+
+        for (IAEStack<T> change : changes) {
+            // Only added items can make an unknown handler a valid target for the first pass
+            if (change != null && change.getStackSize() > 0) {
+                this.routes.remove(change);
+            }
+        }
+    }
+
+}
@@ -332,6 +332,12 @@ public void onListUpdate() {
         }
     }
 
+    @Override
+    public boolean acceptsDeferredChanges() {
+        // Changes are only sent to the client once per tick anyway
+        return true;
+    }
+
     @Override
     public void onSettingChanged(IConfigManager manager, Setting<?> setting) {
         if (this.getGui() != null) {
@@ -18,7 +18,6 @@
 
 package appeng.parts.automation;
 
-import java.util.Collection;
 import java.util.Random;
 
 import net.minecraft.core.BlockPos;
@@ -42,6 +41,7 @@
 import appeng.api.config.Upgrades;
 import appeng.api.config.YesNo;
 import appeng.api.implementations.blockentities.ISegmentedInventory;
+import appeng.api.networking.IGrid;
 import appeng.api.networking.IGridNodeListener;
 import appeng.api.networking.crafting.ICraftingPatternDetails;
 import appeng.api.networking.crafting.ICraftingProvider;
@@ -54,9 +54,9 @@
 import appeng.api.networking.storage.IBaseMonitor;
 import appeng.api.networking.storage.IStackWatcher;
 import appeng.api.networking.storage.IStackWatcherHost;
+import appeng.api.networking.storage.IStorageService;
 import appeng.api.parts.IPartCollisionHelper;
 import appeng.api.parts.IPartModel;
-import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.IMEMonitorHandlerReceiver;
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.StorageChannels;
@@ -222,7 +222,7 @@ private void configureWatchers() {
         }
 
         getMainNode().ifPresent(grid -> {
-            if (this.getInstalledUpgrades(Upgrades.FUZZY) > 0 || myStack == null) {
+            if (myStack == null) {
                 grid.getStorageService()
                         .getInventory(StorageChannels.items())
                         .addListener(this, grid);
@@ -232,32 +232,30 @@ private void configureWatchers() {
                         .removeListener(this);
 
                 if (this.stackWatcher != null) {
-                    this.stackWatcher.add(myStack);
+                    if (this.getInstalledUpgrades(Upgrades.FUZZY) > 0) {
+                        this.stackWatcher.addFuzzy(myStack, this.getConfigManager().getSetting(Settings.FUZZY_MODE));
+                    } else {
+                        this.stackWatcher.add(myStack);
+                    }
                 }
             }
 
-            this.updateReportingValue(grid.getStorageService()
-                    .getInventory(StorageChannels.items()));
+            this.updateReportingValue(grid);
         });
     }
 
-    private void updateReportingValue(final IMEMonitor<IAEItemStack> monitor) {
+    private void updateReportingValue(final IGrid grid) {
         final IAEItemStack myStack = this.config.getAEStackInSlot(0);
+        final IStorageService storageService = grid.getStorageService();
 
         if (myStack == null) {
-            this.lastReportedValue = 0;
-            for (final IAEItemStack st : monitor.getStorageList()) {
-                this.lastReportedValue += st.getStackSize();
-            }
+            this.lastReportedValue = storageService.getStoredItemCount();
         } else if (this.getInstalledUpgrades(Upgrades.FUZZY) > 0) {
-            this.lastReportedValue = 0;
             final FuzzyMode fzMode = this.getConfigManager().getSetting(Settings.FUZZY_MODE);
-            final Collection<IAEItemStack> fuzzyList = monitor.getStorageList().findFuzzy(myStack, fzMode);
-            for (final IAEItemStack st : fuzzyList) {
-                this.lastReportedValue += st.getStackSize();
-            }
+            this.lastReportedValue = storageService.getStoredItemCount(myStack, fzMode);
         } else {
-            final IAEItemStack r = monitor.getStorageList().findPrecise(myStack);
+            final IAEItemStack r = storageService.getInventory(StorageChannels.items()).getStorageList()
+                    .findPrecise(myStack);
             if (r == null) {
                 this.lastReportedValue = 0;
             } else {
@@ -277,9 +275,16 @@ public void updateWatcher(final IStackWatcher newWatcher) {
     @Override
     public void onStackChange(final IItemList o, final IAEStack fullStack, final IAEStack diffStack,
             final IActionSource src, final IStorageChannel chan) {
-        if (chan == StorageChannels.items()
-                && fullStack.equals(this.config.getAEStackInSlot(0))
-                && this.getInstalledUpgrades(Upgrades.FUZZY) == 0) {
+        if (chan != StorageChannels.items()) {
+            return;
+        }
+
+        if (this.getInstalledUpgrades(Upgrades.FUZZY) > 0) {
+            // Only stacks matching the fuzzy filter are reported
+            getMainNode().ifPresent(grid -> {
+                this.updateReportingValue(grid);
+            });
+        } else if (fullStack.equals(this.config.getAEStackInSlot(0))) {
             this.lastReportedValue = fullStack.getStackSize();
             this.updateState();
         }
@@ -293,14 +298,15 @@ public boolean isValid(final Object effectiveGrid) {
     @Override
     public void postChange(final IBaseMonitor<IAEItemStack> monitor, final Iterable<IAEItemStack> change,
             final IActionSource actionSource) {
-        this.updateReportingValue((IMEMonitor<IAEItemStack>) monitor);
+        getMainNode().ifPresent(grid -> {
+            this.updateReportingValue(grid);
+        });
     }
 
     @Override
     public void onListUpdate() {
         getMainNode().ifPresent(grid -> {
-            this.updateReportingValue(grid.getStorageService()
-                    .getInventory(StorageChannels.items()));
+            this.updateReportingValue(grid);
         });
     }
 
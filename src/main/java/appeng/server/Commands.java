@@ -21,6 +21,7 @@
 import java.util.Locale;
 
 import appeng.server.subcommands.ChunkLogger;
+import appeng.server.subcommands.PerformanceStatsCommand;
 import appeng.server.subcommands.SpatialStorageCommand;
 import appeng.server.subcommands.Supporters;
 import appeng.server.subcommands.TestMeteoritesCommand;
@@ -36,6 +37,7 @@ public enum Commands {
     Chunklogger(4, new ChunkLogger()),
     Spatial(4, new SpatialStorageCommand()),
     TICK_MONITORING(4, "tickmonitor", new TickMonitoring()),
+    PERFORMANCE_STATS(4, "perfstats", new PerformanceStatsCommand()),
 
     // Testing
     Compass(4, new TestCompassCommand(), true),
@@ -0,0 +1,59 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.server.subcommands;
+
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.TextComponent;
+import net.minecraft.server.MinecraftServer;
+
+import appeng.me.service.CraftingPlanCache;
+import appeng.me.storage.AbstractCellInventory;
+import appeng.server.ISubCommand;
+import appeng.util.item.AEItemStackRegistry;
+
+/**
+ * Reports counters of internal caches to help diagnose performance problems.
+ */
+public class PerformanceStatsCommand implements ISubCommand {
+
+    @Override
+    public void call(final MinecraftServer srv, final CommandContext<CommandSourceStack> data,
+            final CommandSourceStack sender) {
+        final long lookups = AEItemStackRegistry.getLookups();
+        final long hits = AEItemStackRegistry.getHits();
+        sender.sendSuccess(new TextComponent(String.format("Item stack registry: %d stacks, %d lookups, %.1f%% hits",
+                AEItemStackRegistry.size(), lookups, percentage(hits, lookups))), false);
+
+        final long cellChanges = AbstractCellInventory.getChangeCount();
+        final long cellWrites = AbstractCellInventory.getWriteCount();
+        sender.sendSuccess(new TextComponent(String.format("Storage cells: %d changes, %d writes, %d writes avoided",
+                cellChanges, cellWrites, Math.max(0, cellChanges - cellWrites))), false);
+
+        final long planRequests = CraftingPlanCache.getRequests();
+        sender.sendSuccess(new TextComponent(String.format("Crafting plans: %d requests, %.1f%% reused, %d invalidated",
+                planRequests, percentage(CraftingPlanCache.getHits(), planRequests),
+                CraftingPlanCache.getInvalidations())), false);
+    }
+
+    private static double percentage(long part, long total) {
+        return total > 0 ? part * 100.0 / total : 0;
+    }
+}
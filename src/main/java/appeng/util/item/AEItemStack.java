@@ -75,6 +75,10 @@ public static AEItemStack fromItemStack(@Nonnull final ItemStack stack) {
         return new AEItemStack(AEItemStackRegistry.getRegisteredStack(stack), stack.getCount());
     }
 
+    static AEItemStack fromSharedStack(final AESharedItemStack sharedStack, final long size) {
+        return new AEItemStack(sharedStack, size);
+    }
+
     public static IAEItemStack fromNBT(final CompoundTag i) {
         if (i == null) {
             return null;
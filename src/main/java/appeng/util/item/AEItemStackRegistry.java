@@ -23,41 +23,212 @@
 
 package appeng.util.item;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.Nonnull;
 
 import net.minecraft.world.item.ItemStack;
 
+/**
+ * Interns {@link AESharedItemStack} instances so that equal item stacks share one definition.
+ * <p/>
+ * The table is split into stripes. Lookups of already registered stacks are lock-free and, apart from walking the tag
+ * of the stack, do not allocate: they compute the hash directly from the given {@link ItemStack} and compare it
+ * against the registered definitions without touching its count. Definitions with a different tag fingerprint are
+ * rejected without comparing their tags. Only registering a new stack locks its stripe. Entries are weakly referenced
+ * and removed once the shared stack has been garbage collected.
+ */
 public final class AEItemStackRegistry {
-    private static final WeakHashMap<AESharedItemStack, WeakReference<AESharedItemStack>> REGISTRY = new WeakHashMap<>();
+
+    private static final int STRIPE_COUNT = 64;
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+    private static final Stripe[] STRIPES = new Stripe[STRIPE_COUNT];
+    private static final LongAdder LOOKUPS = new LongAdder();
+    private static final LongAdder HITS = new LongAdder();
+
+    static {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            STRIPES[i] = new Stripe();
+        }
+    }
 
     private AEItemStackRegistry() {
     }
 
-    static synchronized AESharedItemStack getRegisteredStack(final @Nonnull ItemStack itemStack) {
+    static AESharedItemStack getRegisteredStack(final @Nonnull ItemStack itemStack) {
         if (itemStack.isEmpty()) {
             throw new IllegalArgumentException("stack cannot be empty");
         }
 
-        int oldStackSize = itemStack.getCount();
-        itemStack.setCount(1);
+        final long tagFingerprint = TagFingerprint.of(itemStack.getTag());
+        final int hash = spread(AESharedItemStack.makeHashCode(itemStack, tagFingerprint));
+        final Stripe stripe = STRIPES[hash & (STRIPE_COUNT - 1)];
+
+        LOOKUPS.increment();
+        AESharedItemStack ret = stripe.find(hash, itemStack, tagFingerprint);
+        if (ret != null) {
+            HITS.increment();
+            return ret;
+        }
+
+        return stripe.register(hash, itemStack, tagFingerprint);
+    }
+
+    /**
+     * @return The number of registered item stacks. Might include stacks that have already been garbage collected, but
+     *         were not yet removed from the table.
+     */
+    public static int size() {
+        int size = 0;
+        for (Stripe stripe : STRIPES) {
+            size += stripe.count;
+        }
+        return size;
+    }
+
+    /**
+     * @return How often a registered stack was requested.
+     */
+    public static long getLookups() {
+        return LOOKUPS.sum();
+    }
+
+    /**
+     * @return How often a requested stack was already registered.
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    private static int spread(int hash) {
+        return hash ^ hash >>> 16;
+    }
+
+    private static int indexFor(int hash, int length) {
+        // The lower bits are used to select the stripe
+        return hash >>> 6 & length - 1;
+    }
+
+    private static final class Stripe {
+        private final ReferenceQueue<AESharedItemStack> queue = new ReferenceQueue<>();
+        private volatile AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(INITIAL_STRIPE_CAPACITY);
+        private volatile int count;
+
+        /**
+         * Lock-free lookup. Entries are never modified once published, so a reader always sees a consistent chain.
+         */
+        AESharedItemStack find(int hash, ItemStack itemStack, long tagFingerprint) {
+            final AtomicReferenceArray<Entry> tab = this.table;
+            for (Entry e = tab.get(indexFor(hash, tab.length())); e != null; e = e.next) {
+                if (e.hash == hash) {
+                    final AESharedItemStack candidate = e.get();
+                    if (candidate != null && candidate.matches(itemStack, tagFingerprint)) {
+                        return candidate;
+                    }
+                }
+            }
+            return null;
+        }
+
+        synchronized AESharedItemStack register(int hash, ItemStack itemStack, long tagFingerprint) {
+            this.expungeStaleEntries();
+
+            // Another thread might have registered the same stack in the meantime
+            final AESharedItemStack existing = this.find(hash, itemStack, tagFingerprint);
+            if (existing != null) {
+                HITS.increment();
+                return existing;
+            }
+
+            final ItemStack definition = itemStack.copy();
+            definition.setCount(1);
+            final AESharedItemStack created = new AESharedItemStack(definition);
+
+            if (this.count >= this.table.length() * 3 / 4) {
+                this.resize();
+            }
+
+            final AtomicReferenceArray<Entry> tab = this.table;
+            final int index = indexFor(hash, tab.length());
+            tab.set(index, new Entry(created, hash, tab.get(index), this.queue));
+            this.count++;
+
+            return created;
+        }
+
+        private void expungeStaleEntries() {
+            Reference<? extends AESharedItemStack> ref;
+            while ((ref = this.queue.poll()) != null) {
+                this.remove((Entry) ref);
+            }
+        }
+
+        /**
+         * Removes an entry by copying the part of its chain in front of it, dropping any other cleared entries on the
+         * way.
+         */
+        private void remove(Entry stale) {
+            final AtomicReferenceArray<Entry> tab = this.table;
+            final int index = indexFor(stale.hash, tab.length());
+
+            final Entry first = tab.get(index);
+            Entry e = first;
+            while (e != null && e != stale) {
+                e = e.next;
+            }
+            if (e == null) {
+                return; // Already dropped while copying another chain or during a resize
+            }
 
-        AESharedItemStack search = new AESharedItemStack(itemStack);
-        WeakReference<AESharedItemStack> weak = REGISTRY.get(search);
-        AESharedItemStack ret = null;
+            int removed = 1;
+            Entry newFirst = stale.next;
+            for (e = first; e != stale; e = e.next) {
+                final AESharedItemStack referent = e.get();
+                if (referent != null) {
+                    newFirst = new Entry(referent, e.hash, newFirst, this.queue);
+                } else {
+                    removed++;
+                }
+            }
 
-        if (weak != null) {
-            ret = weak.get();
+            tab.set(index, newFirst);
+            this.count -= removed;
         }
 
-        if (ret == null) {
-            ret = new AESharedItemStack(itemStack.copy());
-            REGISTRY.put(ret, new WeakReference<>(ret));
+        private void resize() {
+            final AtomicReferenceArray<Entry> oldTable = this.table;
+            final AtomicReferenceArray<Entry> newTable = new AtomicReferenceArray<>(oldTable.length() * 2);
+
+            int newCount = 0;
+            for (int i = 0; i < oldTable.length(); i++) {
+                for (Entry e = oldTable.get(i); e != null; e = e.next) {
+                    final AESharedItemStack referent = e.get();
+                    if (referent != null) {
+                        final int index = indexFor(e.hash, newTable.length());
+                        newTable.set(index, new Entry(referent, e.hash, newTable.get(index), this.queue));
+                        newCount++;
+                    }
+                }
+            }
+
+            this.table = newTable;
+            this.count = newCount;
         }
-        itemStack.setCount(oldStackSize);
+    }
 
-        return ret;
+    private static final class Entry extends WeakReference<AESharedItemStack> {
+        private final int hash;
+        private final Entry next;
+
+        Entry(AESharedItemStack referent, int hash, Entry next, ReferenceQueue<AESharedItemStack> queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.next = next;
+        }
     }
 }
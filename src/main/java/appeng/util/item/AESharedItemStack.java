@@ -18,8 +18,6 @@
 
 package appeng.util.item;
 
-import java.util.Objects;
-
 import com.google.common.base.Preconditions;
 
 import net.minecraft.world.item.Item;
@@ -30,6 +28,7 @@ final class AESharedItemStack {
     private final ItemStack itemStack;
     private final int itemId;
     private final int itemDamage;
+    private final long tagFingerprint;
     private final int hashCode;
 
     public AESharedItemStack(final ItemStack itemStack) {
@@ -46,9 +45,10 @@ private AESharedItemStack(ItemStack itemStack, int damage) {
         this.itemStack = itemStack;
         this.itemId = Item.getId(itemStack.getItem());
         this.itemDamage = damage;
+        this.tagFingerprint = TagFingerprint.of(itemStack.getTag());
 
         // Ensure this is always called last.
-        this.hashCode = this.makeHashCode();
+        this.hashCode = makeHashCode(this.itemId, this.itemDamage, this.tagFingerprint);
     }
 
     ItemStack getDefinition() {
@@ -79,14 +79,44 @@ public boolean equals(final Object obj) {
         if (this.itemStack == other.itemStack) {
             return true;
         }
+
+        // Cheap checks to reject different stacks before comparing their tags in depth
+        if (this.hashCode != other.hashCode || this.itemId != other.itemId
+                || this.tagFingerprint != other.tagFingerprint) {
+            return false;
+        }
         return ItemStack.matches(this.itemStack, other.itemStack);
     }
 
-    private int makeHashCode() {
-        return Objects.hash(
-                this.itemId,
-                this.itemDamage,
-                this.itemStack.hasTag() ? this.itemStack.getTag() : 0);
+    /**
+     * Checks whether the given item stack has the same definition as this shared stack, regardless of its count.
+     *
+     * @param tagFingerprint The fingerprint of the other stack's tag, as computed by {@link TagFingerprint#of}.
+     */
+    boolean matches(final ItemStack other, final long tagFingerprint) {
+        if (this.itemStack == other) {
+            return true;
+        }
+        if (this.tagFingerprint != tagFingerprint) {
+            return false;
+        }
+        return ItemStack.isSameItemSameTags(this.itemStack, other);
+    }
+
+    /**
+     * Computes the hash code that a shared stack for the given item stack would have.
+     *
+     * @param tagFingerprint The fingerprint of the stack's tag, as computed by {@link TagFingerprint#of}.
+     */
+    static int makeHashCode(final ItemStack itemStack, final long tagFingerprint) {
+        return makeHashCode(Item.getId(itemStack.getItem()), itemStack.getDamageValue(), tagFingerprint);
+    }
+
+    private static int makeHashCode(int itemId, int itemDamage, long tagFingerprint) {
+        int result = 31 + itemId;
+        result = 31 * result + itemDamage;
+        result = 31 * result + Long.hashCode(tagFingerprint);
+        return result;
     }
 
 }
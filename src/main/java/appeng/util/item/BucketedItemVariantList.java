@@ -0,0 +1,196 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.world.item.ItemStack;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+
+/**
+ * Alternative to {@link FuzzyItemVariantList} for damageable items, which answers fuzzy queries without searching.
+ * <p/>
+ * A fuzzy query with one of the percentage based {@link FuzzyMode}s selects all variants on the same side of the break
+ * point of that mode as the filter. For each of these modes, the variants are therefore split into two buckets
+ * depending on their damage, and a query just returns one of those buckets.
+ * <p/>
+ * This relies on all variants having the same max damage as the filter, which only isn't the case for items that
+ * compute their max damage from the NBT of the stack. Queries for such items fall back to filtering all variants.
+ */
+class BucketedItemVariantList extends ItemVariantList {
+
+    private static final FuzzyMode[] MODES = FuzzyMode.values();
+
+    private final Reference2ObjectMap<AESharedItemStack, IAEItemStack> records = new Reference2ObjectOpenHashMap<>();
+
+    /**
+     * Variants with a damage at or below the break point of a mode, indexed by the ordinal of the mode.
+     */
+    private final ReferenceLinkedOpenHashSet<IAEItemStack>[] undamaged = createBuckets();
+
+    /**
+     * Variants with a damage above the break point of a mode, indexed by the ordinal of the mode.
+     */
+    private final ReferenceLinkedOpenHashSet<IAEItemStack>[] damaged = createBuckets();
+
+    /**
+     * The max damage shared by all variants, or -1 if no variant has been added yet.
+     */
+    private int maxDamage = -1;
+    private boolean mixedMaxDamage = false;
+
+    private final Collection<IAEItemStack> recordValues = new AbstractCollection<>() {
+        @Override
+        public Iterator<IAEItemStack> iterator() {
+            return new RecordIterator();
+        }
+
+        @Override
+        public int size() {
+            return BucketedItemVariantList.this.records.size();
+        }
+    };
+
+    @Override
+    public Collection<IAEItemStack> findFuzzy(final IAEItemStack filter, final FuzzyMode fuzzy) {
+        if (fuzzy == FuzzyMode.IGNORE_ALL || this.records.isEmpty()) {
+            return this.records.values();
+        }
+
+        final ItemStack definition = filter.getDefinition();
+        if (this.mixedMaxDamage || definition.getMaxDamage() != this.maxDamage) {
+            return this.filterVariants(definition, fuzzy);
+        }
+
+        final int breakpoint = fuzzy.calculateBreakPoint(this.maxDamage);
+        final Collection<IAEItemStack>[] buckets = definition.getDamageValue() <= breakpoint ? this.undamaged
+                : this.damaged;
+        return Collections.unmodifiableCollection(buckets[fuzzy.ordinal()]);
+    }
+
+    @Override
+    public Iterator<IAEItemStack> iterator() {
+        // Variants that are removed while iterating also have to be removed from their buckets
+        return new MeaningfulItemIterator<>(this.recordValues);
+    }
+
+    @Override
+    Map<AESharedItemStack, IAEItemStack> getRecords() {
+        return this.records;
+    }
+
+    @Override
+    void putItemRecord(final IAEItemStack itemStack) {
+        super.putItemRecord(itemStack);
+
+        final ItemStack definition = itemStack.getDefinition();
+        final int variantMaxDamage = definition.getMaxDamage();
+        if (this.maxDamage == -1) {
+            this.maxDamage = variantMaxDamage;
+        } else if (this.maxDamage != variantMaxDamage) {
+            this.mixedMaxDamage = true;
+        }
+
+        for (FuzzyMode mode : MODES) {
+            if (mode != FuzzyMode.IGNORE_ALL) {
+                this.getBucket(definition, mode).add(itemStack);
+            }
+        }
+    }
+
+    private void removeFromBuckets(final IAEItemStack itemStack) {
+        final ItemStack definition = itemStack.getDefinition();
+        for (FuzzyMode mode : MODES) {
+            if (mode != FuzzyMode.IGNORE_ALL) {
+                this.getBucket(definition, mode).remove(itemStack);
+            }
+        }
+    }
+
+    private ReferenceLinkedOpenHashSet<IAEItemStack> getBucket(final ItemStack variant, final FuzzyMode mode) {
+        final int breakpoint = mode.calculateBreakPoint(variant.getMaxDamage());
+        return variant.getDamageValue() <= breakpoint ? this.undamaged[mode.ordinal()]
+                : this.damaged[mode.ordinal()];
+    }
+
+    /**
+     * Selects the same damage range as {@link FuzzyItemVariantList} by checking every variant.
+     */
+    private Collection<IAEItemStack> filterVariants(final ItemStack filter, final FuzzyMode fuzzy) {
+        final int lowerBound = FuzzyItemVariantList.makeLowerBound(filter, fuzzy).itemDamage;
+        final int upperBound = FuzzyItemVariantList.makeUpperBound(filter, fuzzy).itemDamage;
+
+        final List<IAEItemStack> result = new ArrayList<>();
+        for (IAEItemStack variant : this.records.values()) {
+            final int damage = variant.getDefinition().getDamageValue();
+            if (damage <= lowerBound && damage > upperBound) {
+                result.add(variant);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReferenceLinkedOpenHashSet<IAEItemStack>[] createBuckets() {
+        final ReferenceLinkedOpenHashSet<IAEItemStack>[] buckets = new ReferenceLinkedOpenHashSet[MODES.length];
+        for (FuzzyMode mode : MODES) {
+            if (mode != FuzzyMode.IGNORE_ALL) {
+                buckets[mode.ordinal()] = new ReferenceLinkedOpenHashSet<>();
+            }
+        }
+        return buckets;
+    }
+
+    private class RecordIterator implements Iterator<IAEItemStack> {
+
+        private final Iterator<IAEItemStack> parent = BucketedItemVariantList.this.records.values().iterator();
+        private IAEItemStack current;
+
+        @Override
+        public boolean hasNext() {
+            return this.parent.hasNext();
+        }
+
+        @Override
+        public IAEItemStack next() {
+            this.current = this.parent.next();
+            return this.current;
+        }
+
+        @Override
+        public void remove() {
+            this.parent.remove();
+            BucketedItemVariantList.this.removeFromBuckets(this.current);
+        }
+
+    }
+
+}
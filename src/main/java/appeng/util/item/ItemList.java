@@ -43,6 +43,18 @@ public final class ItemList implements IItemList<IAEItemStack> {
      * version whenever they advance to trigger a {@link ConcurrentModificationException}.
      */
     private final AtomicInteger version = new AtomicInteger(0);
+    /**
+     * Use {@link BucketedItemVariantList} instead of {@link FuzzyItemVariantList} for damageable items.
+     */
+    private final boolean bucketedFuzzyIndex;
+
+    public ItemList() {
+        this(false);
+    }
+
+    public ItemList(boolean bucketedFuzzyIndex) {
+        this.bucketedFuzzyIndex = bucketedFuzzyIndex;
+    }
 
     @Override
     public IAEItemStack findPrecise(final IAEItemStack itemStack) {
@@ -150,7 +162,7 @@ private ItemVariantList getOrCreateRecord(Item item) {
 
     private ItemVariantList makeRecordMap(Item item) {
         if (item.canBeDepleted()) {
-            return new FuzzyItemVariantList();
+            return this.bucketedFuzzyIndex ? new BucketedItemVariantList() : new FuzzyItemVariantList();
         } else {
             return new NormalItemVariantList();
         }
@@ -0,0 +1,108 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+/**
+ * Assigns dense int ids to the distinct item types (item and tag) seen by a grid, so that lists of that grid can store
+ * their counts in primitive maps instead of holding one {@link AEItemStack} per entry.
+ * <p/>
+ * Lists {@link #acquire(AESharedItemStack) acquire} an id for every entry they create and {@link #release(int) release}
+ * it once the entry is removed. An id is reclaimed and may be assigned to another item type as soon as no list holds
+ * an entry for its type anymore, so the dictionary does not keep item types alive that left the grid. Like the lists
+ * that use it, it must only be accessed from the server thread.
+ */
+public final class ItemStackKeys {
+
+    private final Reference2IntMap<AESharedItemStack> ids = new Reference2IntOpenHashMap<>();
+    /**
+     * The item type of every id, or null if the id is currently unused.
+     */
+    private final List<AESharedItemStack> keys = new ArrayList<>();
+    /**
+     * The number of list entries holding each id.
+     */
+    private final IntArrayList references = new IntArrayList();
+    private final IntArrayList freeIds = new IntArrayList();
+
+    public ItemStackKeys() {
+        this.ids.defaultReturnValue(-1);
+    }
+
+    /**
+     * @return The id of the given item type, or -1 if no list currently holds an entry for it.
+     */
+    int getId(AESharedItemStack key) {
+        return this.ids.getInt(key);
+    }
+
+    /**
+     * Adds a reference to the id of the given item type, assigning it an id first if necessary.
+     *
+     * @return The id of the item type.
+     */
+    int acquire(AESharedItemStack key) {
+        int id = this.ids.getInt(key);
+        if (id < 0) {
+            if (this.freeIds.isEmpty()) {
+                id = this.keys.size();
+                this.keys.add(key);
+                this.references.add(0);
+            } else {
+                id = this.freeIds.popInt();
+                this.keys.set(id, key);
+            }
+            this.ids.put(key, id);
+        }
+        this.references.set(id, this.references.getInt(id) + 1);
+        return id;
+    }
+
+    /**
+     * Removes a reference that was added by {@link #acquire(AESharedItemStack)}. The id is reclaimed once its last
+     * reference is removed.
+     */
+    void release(int id) {
+        final int remaining = this.references.getInt(id) - 1;
+        this.references.set(id, remaining);
+        if (remaining <= 0) {
+            this.ids.removeInt(this.keys.get(id));
+            this.keys.set(id, null);
+            this.freeIds.push(id);
+        }
+    }
+
+    AESharedItemStack getKey(int id) {
+        return this.keys.get(id);
+    }
+
+    /**
+     * @return The number of item types that are currently assigned an id.
+     */
+    public int size() {
+        return this.ids.size();
+    }
+
+}
@@ -107,7 +107,7 @@ public Iterator<IAEItemStack> iterator() {
         return new MeaningfulItemIterator<>(this.getRecords().values());
     }
 
-    private void putItemRecord(final IAEItemStack itemStack) {
+    void putItemRecord(final IAEItemStack itemStack) {
         this.getRecords().put(((AEItemStack) itemStack).getSharedStack(), itemStack);
     }
 
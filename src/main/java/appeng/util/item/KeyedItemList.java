@@ -0,0 +1,281 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+/**
+ * An item list that stores its counts in primitive maps keyed by the ids of a grid-wide {@link ItemStackKeys}
+ * dictionary, instead of holding an {@link IAEItemStack} per entry like {@link ItemList}.
+ * <p/>
+ * Unlike {@link ItemList}, the stacks returned by this list are created on demand and are not backed by the list.
+ * Changing them has no effect on the list; use {@link #add}, {@link #addStorage}, {@link #addCrafting} and
+ * {@link #addRequestable} instead. Iterators work on a snapshot of the entries that existed when they were created, so
+ * modifying the list while iterating over it is allowed.
+ */
+public final class KeyedItemList implements IItemList<IAEItemStack> {
+
+    private final ItemStackKeys keys;
+
+    /**
+     * Contains an entry for every item type in this list, even if only its requestable amount or craftable flag is set.
+     */
+    private final Int2LongOpenHashMap stored = new Int2LongOpenHashMap();
+    private final Int2LongOpenHashMap requestable = new Int2LongOpenHashMap();
+    private final IntSet craftable = new IntOpenHashSet();
+
+    /**
+     * The ids of the entries grouped by item, to answer fuzzy searches without looking at all entries.
+     */
+    private final Reference2ObjectMap<Item, IntSet> variants = new Reference2ObjectOpenHashMap<>();
+
+    public KeyedItemList(ItemStackKeys keys) {
+        this.keys = keys;
+    }
+
+    @Override
+    public IAEItemStack findPrecise(final IAEItemStack itemStack) {
+        if (itemStack == null) {
+            return null;
+        }
+
+        final int id = this.keys.getId(((AEItemStack) itemStack).getSharedStack());
+        return id >= 0 && this.stored.containsKey(id) ? this.createStack(id) : null;
+    }
+
+    @Override
+    public Collection<IAEItemStack> findFuzzy(final IAEItemStack filter, final FuzzyMode fuzzy) {
+        if (filter == null) {
+            return Collections.emptyList();
+        }
+
+        final IntSet ids = this.variants.get(filter.getItem());
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+
+        // Same durability ranges as FuzzyItemVariantList, all variants are returned for items without durability
+        final ItemStack definition = filter.getDefinition();
+        final boolean damageable = definition.getItem().canBeDepleted();
+        final int lowerBound = damageable ? FuzzyItemVariantList.makeLowerBound(definition, fuzzy).itemDamage : 0;
+        final int upperBound = damageable ? FuzzyItemVariantList.makeUpperBound(definition, fuzzy).itemDamage : 0;
+
+        final List<IAEItemStack> result = new ArrayList<>(ids.size());
+        for (IntIterator it = ids.iterator(); it.hasNext();) {
+            final int id = it.nextInt();
+            final int damage = this.keys.getKey(id).getItemDamage();
+            if (!damageable || damage > upperBound && damage <= lowerBound) {
+                result.add(this.createStack(id));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.stored.isEmpty();
+    }
+
+    @Override
+    public void add(final IAEItemStack option) {
+        if (option == null) {
+            return;
+        }
+
+        final int id = this.getOrCreateEntry(option);
+        this.stored.addTo(id, option.getStackSize());
+        this.addRequestable(id, option.getCountRequestable());
+        if (option.isCraftable()) {
+            this.craftable.add(id);
+        }
+        this.removeIfEmpty(id);
+    }
+
+    @Override
+    public void addStorage(final IAEItemStack option) {
+        if (option == null) {
+            return;
+        }
+
+        final int id = this.keys.getId(((AEItemStack) option).getSharedStack());
+        if (id >= 0 && this.stored.containsKey(id)) {
+            this.stored.addTo(id, option.getStackSize());
+            this.removeIfEmpty(id);
+        } else {
+            // New entries inherit all properties of the added stack
+            this.add(option);
+        }
+    }
+
+    @Override
+    public void addCrafting(final IAEItemStack option) {
+        if (option == null) {
+            return;
+        }
+
+        int id = this.keys.getId(((AEItemStack) option).getSharedStack());
+        if (id < 0 || !this.stored.containsKey(id)) {
+            id = this.getOrCreateEntry(option);
+            this.addRequestable(id, option.getCountRequestable());
+        }
+        this.craftable.add(id);
+    }
+
+    @Override
+    public void addRequestable(final IAEItemStack option) {
+        if (option == null) {
+            return;
+        }
+
+        final int id = this.getOrCreateEntry(option);
+        this.addRequestable(id, option.getCountRequestable());
+        this.removeIfEmpty(id);
+    }
+
+    @Override
+    public IAEItemStack getFirstItem() {
+        for (final IAEItemStack stackType : this) {
+            return stackType;
+        }
+
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return this.stored.size();
+    }
+
+    @Override
+    public Iterator<IAEItemStack> iterator() {
+        return new SnapshotIterator(this.stored.keySet().toIntArray());
+    }
+
+    @Override
+    public void resetStatus() {
+        for (IntIterator it = this.stored.keySet().iterator(); it.hasNext();) {
+            this.keys.release(it.nextInt());
+        }
+        this.stored.clear();
+        this.requestable.clear();
+        this.craftable.clear();
+        this.variants.clear();
+    }
+
+    private int getOrCreateEntry(IAEItemStack option) {
+        final AESharedItemStack key = ((AEItemStack) option).getSharedStack();
+        int id = this.keys.getId(key);
+        if (id < 0 || !this.stored.containsKey(id)) {
+            id = this.keys.acquire(key);
+            this.stored.put(id, 0);
+            this.variants.computeIfAbsent(key.getDefinition().getItem(), item -> new IntOpenHashSet()).add(id);
+        }
+        return id;
+    }
+
+    private void addRequestable(int id, long amount) {
+        if (amount != 0) {
+            this.requestable.addTo(id, amount);
+        }
+    }
+
+    /**
+     * Entries that are neither stored, requestable nor craftable are not meaningful and are removed right away.
+     */
+    private void removeIfEmpty(int id) {
+        if (this.stored.get(id) != 0 || this.requestable.get(id) > 0 || this.craftable.contains(id)) {
+            return;
+        }
+
+        this.stored.remove(id);
+        this.requestable.remove(id);
+
+        final Item item = this.keys.getKey(id).getDefinition().getItem();
+        final IntSet ids = this.variants.get(item);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            this.variants.remove(item);
+        }
+        this.keys.release(id);
+    }
+
+    private IAEItemStack createStack(int id) {
+        final AEItemStack stack = AEItemStack.fromSharedStack(this.keys.getKey(id), this.stored.get(id));
+        stack.setCountRequestable(this.requestable.get(id));
+        stack.setCraftable(this.craftable.contains(id));
+        return stack;
+    }
+
+    private class SnapshotIterator implements Iterator<IAEItemStack> {
+
+        private final int[] ids;
+        private int position;
+        private IAEItemStack next;
+
+        SnapshotIterator(int[] ids) {
+            this.ids = ids;
+            this.next = this.seekNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public IAEItemStack next() {
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+
+            final IAEItemStack result = this.next;
+            this.next = this.seekNext();
+            return result;
+        }
+
+        private IAEItemStack seekNext() {
+            while (this.position < this.ids.length) {
+                final int id = this.ids[this.position++];
+                if (stored.containsKey(id)) {
+                    return createStack(id);
+                }
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.nbt.ByteArrayTag;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.DoubleTag;
+import net.minecraft.nbt.FloatTag;
+import net.minecraft.nbt.IntArrayTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.NumericTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+
+/**
+ * Computes a 64-bit fingerprint of the structure and content of an NBT tag.
+ * <p/>
+ * Tags that are {@link Tag#equals(Object) equal} always have the same fingerprint, so differing fingerprints prove
+ * that two tags are not equal without comparing them. The order of entries in a compound tag does not affect its
+ * fingerprint.
+ */
+final class TagFingerprint {
+
+    /**
+     * Fingerprint used for stacks without a tag.
+     */
+    static final long NONE = 0;
+
+    private TagFingerprint() {
+    }
+
+    static long of(@Nullable CompoundTag tag) {
+        return tag == null ? NONE : hash(tag);
+    }
+
+    private static long hash(Tag tag) {
+        long h;
+
+        if (tag instanceof CompoundTag compound) {
+            // Sum up the entries, so that the result is independent of the iteration order
+            h = 0;
+            for (String key : compound.getAllKeys()) {
+                h += mix(hash(key) * 31 + hash(compound.get(key)));
+            }
+        } else if (tag instanceof ListTag list) {
+            h = 1;
+            for (Tag element : list) {
+                h = h * 31 + hash(element);
+            }
+        } else if (tag instanceof FloatTag || tag instanceof DoubleTag) {
+            // Positive and negative zero are equal tags
+            final double value = ((NumericTag) tag).getAsDouble();
+            h = value == 0 ? 0 : Double.doubleToLongBits(value);
+        } else if (tag instanceof NumericTag numeric) {
+            h = numeric.getAsLong();
+        } else if (tag instanceof StringTag) {
+            h = hash(tag.getAsString());
+        } else if (tag instanceof ByteArrayTag byteArray) {
+            h = 1;
+            for (byte value : byteArray.getAsByteArray()) {
+                h = h * 31 + value;
+            }
+        } else if (tag instanceof IntArrayTag intArray) {
+            h = 1;
+            for (int value : intArray.getAsIntArray()) {
+                h = h * 31 + value;
+            }
+        } else if (tag instanceof LongArrayTag longArray) {
+            h = 1;
+            for (long value : longArray.getAsLongArray()) {
+                h = h * 31 + value;
+            }
+        } else {
+            h = tag.hashCode();
+        }
+
+        return mix(h + tag.getId());
+    }
+
+    private static long hash(String value) {
+        long h = 1;
+        for (int i = 0; i < value.length(); i++) {
+            h = h * 31 + value.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * The finalizer of SplitMix64, to spread the bits of the intermediate hashes.
+     */
+    private static long mix(long z) {
+        z = (z ^ z >>> 30) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ z >>> 27) * 0x94d049bb133111ebL;
+        return z ^ z >>> 31;
+    }
+
+}
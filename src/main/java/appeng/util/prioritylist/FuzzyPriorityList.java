@@ -18,9 +18,23 @@
 
 package appeng.util.prioritylist;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 
 import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
 
@@ -29,13 +43,24 @@
     private final IItemList<T> list;
     private final FuzzyMode mode;
 
+    /**
+     * The compiled form of the list if it only contains items, otherwise null.
+     */
+    @Nullable
+    private final CompiledItemList compiledItems;
+
     public FuzzyPriorityList(final IItemList<T> in, final FuzzyMode mode) {
         this.list = in;
         this.mode = mode;
+        this.compiledItems = CompiledItemList.compile(in, mode);
     }
 
     @Override
     public boolean isListed(final T input) {
+        if (this.compiledItems != null && input instanceof IAEItemStack itemStack) {
+            return this.compiledItems.isListed(itemStack);
+        }
+
         final Collection<T> out = this.list.findFuzzy(input, this.mode);
         return out != null && !out.isEmpty();
     }
@@ -49,4 +74,73 @@ public boolean isEmpty() {
     public Iterable<T> getItems() {
         return this.list;
     }
+
+    /**
+     * Answers the same question as a fuzzy search of an item list, using structures specialised for it: Items whose
+     * variants all match are kept in a set, and for damageable items the damage values of the listed stacks are kept
+     * sorted, so a damage range can be checked with a binary search.
+     */
+    private static class CompiledItemList {
+
+        private final FuzzyMode mode;
+        private final Set<Item> anyVariant = new ReferenceOpenHashSet<>();
+        private final Reference2ObjectMap<Item, int[]> sortedDamageValues = new Reference2ObjectOpenHashMap<>();
+
+        private CompiledItemList(final FuzzyMode mode) {
+            this.mode = mode;
+        }
+
+        @Nullable
+        static CompiledItemList compile(final IItemList<?> list, final FuzzyMode mode) {
+            final CompiledItemList compiled = new CompiledItemList(mode);
+            final Reference2ObjectMap<Item, IntList> damageValues = new Reference2ObjectOpenHashMap<>();
+
+            for (final Object stack : list) {
+                if (!(stack instanceof IAEItemStack itemStack)) {
+                    return null;
+                }
+
+                final Item item = itemStack.getItem();
+                if (!item.canBeDepleted() || mode == FuzzyMode.IGNORE_ALL) {
+                    compiled.anyVariant.add(item);
+                } else {
+                    damageValues.computeIfAbsent(item, i -> new IntArrayList()).add(itemStack.getItemDamage());
+                }
+            }
+
+            for (final Reference2ObjectMap.Entry<Item, IntList> entry : damageValues.reference2ObjectEntrySet()) {
+                final int[] sorted = entry.getValue().toIntArray();
+                Arrays.sort(sorted);
+                compiled.sortedDamageValues.put(entry.getKey(), sorted);
+            }
+
+            return compiled;
+        }
+
+        boolean isListed(final IAEItemStack input) {
+            final Item item = input.getItem();
+            if (this.anyVariant.contains(item)) {
+                return true;
+            }
+
+            final int[] damageValues = this.sortedDamageValues.get(item);
+            if (damageValues == null) {
+                return false;
+            }
+
+            // Same ranges as the fuzzy search of damageable items in item lists
+            final ItemStack definition = input.getDefinition();
+            final int breakpoint = this.mode.calculateBreakPoint(definition.getMaxDamage());
+            if (definition.getDamageValue() <= breakpoint) {
+                return damageValues[0] <= breakpoint;
+            }
+
+            // Find the first listed damage value above the break point
+            int pos = Arrays.binarySearch(damageValues, breakpoint + 1);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            return pos < damageValues.length && damageValues[pos] <= definition.getMaxDamage();
+        }
+    }
 }
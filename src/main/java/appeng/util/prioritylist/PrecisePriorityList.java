@@ -18,6 +18,9 @@
 
 package appeng.util.prioritylist;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
 
@@ -25,18 +28,26 @@
 
     private final IItemList<T> list;
 
+    /**
+     * The listed stacks, compiled into a set so that checking an input costs a single lookup.
+     */
+    private final Set<T> keys = new HashSet<>();
+
     public PrecisePriorityList(final IItemList<T> in) {
         this.list = in;
+        for (final T stack : in) {
+            this.keys.add(stack);
+        }
     }
 
     @Override
     public boolean isListed(final T input) {
-        return this.list.findPrecise(input) != null;
+        return this.keys.contains(input);
     }
 
     @Override
     public boolean isEmpty() {
-        return this.list.isEmpty();
+        return this.keys.isEmpty();
     }
 
     @Override
@@ -0,0 +1,145 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.blockentity.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import appeng.api.config.Actionable;
+import appeng.api.config.PowerMultiplier;
+import appeng.api.networking.energy.IEnergySource;
+import appeng.api.networking.security.IActionSource;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.IStorageChannel;
+import appeng.api.storage.StorageChannels;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.helpers.BaseActionSource;
+import appeng.util.BootstrapMinecraft;
+import appeng.util.item.AEItemStack;
+
+@BootstrapMinecraft
+class IOPortBlockEntityTest {
+
+    private static final IActionSource SRC = new BaseActionSource();
+
+    @Test
+    void testExtractOnlySourceKeepsWhatTheDestinationRefuses() {
+        final TestInventory source = new TestInventory(64, Long.MAX_VALUE, false);
+        final TestInventory destination = new TestInventory(0, 40, true);
+
+        final long moved = IOPortBlockEntity.moveStack(new TestEnergy(Double.MAX_VALUE), source, destination,
+                diamonds(64), SRC);
+
+        assertEquals(40, moved);
+        assertEquals(24, source.stored);
+        assertEquals(40, destination.stored);
+    }
+
+    @Test
+    void testExtractOnlySourceKeepsWhatCantBePaidFor() {
+        final TestInventory source = new TestInventory(64, Long.MAX_VALUE, false);
+        final TestInventory destination = new TestInventory(0, Long.MAX_VALUE, true);
+        final TestEnergy energy = new TestEnergy(10);
+
+        final long moved = IOPortBlockEntity.moveStack(energy, source, destination, diamonds(64), SRC);
+
+        assertEquals(10, moved);
+        assertEquals(54, source.stored);
+        assertEquals(10, destination.stored);
+        assertEquals(0, energy.power, 0.0001);
+    }
+
+    private static IAEItemStack diamonds(long amount) {
+        return AEItemStack.fromItemStack(new ItemStack(Items.DIAMOND)).setStackSize(amount);
+    }
+
+    /**
+     * Stores a single item type up to a capacity, optionally refusing all input.
+     */
+    private static class TestInventory implements IMEInventory<IAEItemStack> {
+        private final long capacity;
+        private final boolean acceptsInput;
+        private long stored;
+
+        private TestInventory(long stored, long capacity, boolean acceptsInput) {
+            this.stored = stored;
+            this.capacity = capacity;
+            this.acceptsInput = acceptsInput;
+        }
+
+        @Override
+        public IAEItemStack injectItems(IAEItemStack input, Actionable type, IActionSource src) {
+            if (!this.acceptsInput) {
+                return input;
+            }
+            final long accepted = Math.min(this.capacity - this.stored, input.getStackSize());
+            if (type == Actionable.MODULATE) {
+                this.stored += accepted;
+            }
+            if (accepted == input.getStackSize()) {
+                return null;
+            }
+            return input.copy().setStackSize(input.getStackSize() - accepted);
+        }
+
+        @Override
+        public IAEItemStack extractItems(IAEItemStack request, Actionable mode, IActionSource src) {
+            final long extracted = Math.min(this.stored, request.getStackSize());
+            if (mode == Actionable.MODULATE) {
+                this.stored -= extracted;
+            }
+            return extracted == 0 ? null : request.copy().setStackSize(extracted);
+        }
+
+        @Override
+        public IItemList<IAEItemStack> getAvailableItems(IItemList<IAEItemStack> out) {
+            if (this.stored > 0) {
+                out.add(diamonds(this.stored));
+            }
+            return out;
+        }
+
+        @Override
+        public IStorageChannel<IAEItemStack> getChannel() {
+            return StorageChannels.items();
+        }
+    }
+
+    private static class TestEnergy implements IEnergySource {
+        private double power;
+
+        private TestEnergy(double power) {
+            this.power = power;
+        }
+
+        @Override
+        public double extractAEPower(double amt, Actionable mode, PowerMultiplier multiplier) {
+            final double extracted = Math.min(this.power, amt);
+            if (mode == Actionable.MODULATE) {
+                this.power -= extracted;
+            }
+            return extracted;
+        }
+    }
+}
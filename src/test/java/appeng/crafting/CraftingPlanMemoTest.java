@@ -0,0 +1,248 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.world.inventory.CraftingContainer;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.Level;
+
+import appeng.api.config.Actionable;
+import appeng.api.networking.crafting.ICraftingPatternDetails;
+import appeng.api.networking.security.IActionSource;
+import appeng.api.storage.StorageChannels;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.helpers.BaseActionSource;
+import appeng.util.BootstrapMinecraft;
+import appeng.util.item.AEItemStack;
+
+@BootstrapMinecraft
+class CraftingPlanMemoTest {
+
+    private static final IActionSource SRC = new BaseActionSource();
+
+    /**
+     * Crafting a single plank from a log leaves three planks over. A later request for eight planks uses those first
+     * and only needs two more crafts, so the recorded profile must not be scaled up to the remaining five planks.
+     */
+    @Test
+    void testProfileWithLeftoversMatchesNormalWalk() throws CraftBranchFailure {
+        final TestPattern pattern = new TestPattern(stack(Items.OAK_LOG, 1), stack(Items.OAK_PLANKS, 4));
+
+        final Plan memoized = new Plan(pattern, new CraftingPlanMemo());
+        memoized.request(1);
+        assertFalse(memoized.request(8));
+
+        final Plan walked = new Plan(pattern, null);
+        walked.request(1);
+        walked.request(8);
+
+        assertPlansMatch(walked, memoized);
+        assertEquals(3, memoized.getCrafts());
+    }
+
+    @Test
+    void testProportionalProfileMatchesNormalWalk() throws CraftBranchFailure {
+        final TestPattern pattern = new TestPattern(stack(Items.OAK_LOG, 2), stack(Items.OAK_PLANKS, 1));
+
+        final Plan memoized = new Plan(pattern, new CraftingPlanMemo());
+        memoized.request(1);
+        assertTrue(memoized.request(8));
+
+        final Plan walked = new Plan(pattern, null);
+        walked.request(1);
+        walked.request(8);
+
+        assertPlansMatch(walked, memoized);
+        assertEquals(9, memoized.getCrafts());
+    }
+
+    private static void assertPlansMatch(final Plan expected, final Plan actual) {
+        assertEquals(expected.getCrafts(), actual.getCrafts());
+        for (final Item item : List.of(Items.OAK_LOG, Items.OAK_PLANKS)) {
+            assertEquals(expected.getStored(item), actual.getStored(item), item.toString());
+        }
+    }
+
+    private static IAEItemStack stack(final Item item, final int count) {
+        return AEItemStack.fromItemStack(new ItemStack(item, count));
+    }
+
+    /**
+     * Plans requests for the output of a single pattern the way a crafting tree node with a single pattern does.
+     */
+    private static class Plan {
+
+        private final TestPattern pattern;
+        @Nullable
+        private final CraftingPlanMemo memo;
+        private final MECraftingInventory inv = new MECraftingInventory();
+        private final CraftingPlanMemo.Crafts crafts = new CraftingPlanMemo.Crafts();
+
+        private Plan(final TestPattern pattern, @Nullable final CraftingPlanMemo memo) {
+            this.pattern = pattern;
+            this.memo = memo;
+            this.inv.injectItems(stack(Items.OAK_LOG, 64), Actionable.MODULATE, SRC);
+        }
+
+        /**
+         * @return True if a recorded profile was reused.
+         */
+        private boolean request(final long requested) throws CraftBranchFailure {
+            final IAEItemStack what = this.pattern.output.copy();
+
+            long l = requested;
+            final IAEItemStack stored = this.inv.extractItems(what.copy().setStackSize(l), Actionable.MODULATE, SRC);
+            if (stored != null) {
+                l -= stored.getStackSize();
+                if (l == 0) {
+                    return false;
+                }
+            }
+
+            if (this.memo != null) {
+                final CraftingPlanMemo.Profile profile = this.memo.get(what, this.pattern);
+                if (profile != null && profile.canApply(this.inv, l, SRC)) {
+                    profile.apply(this.inv, l, this.crafts, SRC);
+                    return true;
+                }
+            }
+
+            final CraftingPlanMemo.Crafts before = new CraftingPlanMemo.Crafts();
+            before.addAll(this.crafts, 1);
+            IItemList<IAEItemStack> recording = null;
+            if (this.memo != null && !this.memo.contains(what, this.pattern)) {
+                recording = this.inv.startRecording();
+            }
+
+            final long perCraft = this.pattern.output.getStackSize();
+            final long times = (l + perCraft - 1) / perCraft;
+            final IAEItemStack input = this.pattern.input.copy();
+            input.setStackSize(input.getStackSize() * times);
+            final IAEItemStack extracted = this.inv.extractItems(input, Actionable.MODULATE, SRC);
+            if (extracted == null || extracted.getStackSize() != input.getStackSize()) {
+                throw new CraftBranchFailure(input, input.getStackSize());
+            }
+            this.inv.injectItems(what.copy().setStackSize(perCraft * times), Actionable.MODULATE, SRC);
+            this.crafts.addCrafts(this.pattern, this.pattern.output, times);
+
+            final IAEItemStack result = this.inv.extractItems(what.copy().setStackSize(l), Actionable.MODULATE, SRC);
+
+            if (recording != null) {
+                this.inv.stopRecording(recording);
+                this.memo.record(what, this.pattern, l, result, recording, this.crafts.since(before));
+            }
+            return false;
+        }
+
+        private long getCrafts() {
+            final IItemList<IAEItemStack> plan = StorageChannels.items().createList();
+            this.crafts.getPlan(plan);
+            final IAEItemStack planned = plan.findPrecise(this.pattern.output);
+            return planned == null ? 0 : planned.getCountRequestable() / this.pattern.output.getStackSize();
+        }
+
+        private long getStored(final Item item) {
+            final IAEItemStack stored = this.inv.getItemList().findPrecise(stack(item, 1));
+            return stored == null ? 0 : stored.getStackSize();
+        }
+    }
+
+    private static class TestPattern implements ICraftingPatternDetails {
+
+        private final IAEItemStack input;
+        private final IAEItemStack output;
+
+        private TestPattern(final IAEItemStack input, final IAEItemStack output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        @Override
+        public ItemStack getPattern() {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public boolean isValidItemForSlot(final int slotIndex, final ItemStack itemStack, final Level level) {
+            return false;
+        }
+
+        @Override
+        public boolean isCraftable() {
+            return false;
+        }
+
+        @Override
+        public List<IAEItemStack> getInputs() {
+            return List.of(this.input);
+        }
+
+        @Override
+        public List<IAEItemStack> getOutputs() {
+            return List.of(this.output);
+        }
+
+        @Override
+        public IAEItemStack[] getSparseInputs() {
+            return new IAEItemStack[] { this.input };
+        }
+
+        @Override
+        public IAEItemStack[] getSparseOutputs() {
+            return new IAEItemStack[] { this.output };
+        }
+
+        @Override
+        public boolean canSubstitute() {
+            return false;
+        }
+
+        @Override
+        public List<IAEItemStack> getSubstituteInputs(final int slot) {
+            return List.of();
+        }
+
+        @Override
+        public ItemStack getOutput(final CraftingContainer craftingInv, final Level level) {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public int getPriority() {
+            return 0;
+        }
+
+        @Override
+        public void setPriority(final int priority) {
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.helpers;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class ReentrancyGuardTest {
+
+    private final ReentrancyGuard guard = new ReentrancyGuard("test", () -> false);
+    private final ReentrancyGuard.Entry a = new ReentrancyGuard.Entry("a");
+    private final ReentrancyGuard.Entry b = new ReentrancyGuard.Entry("b");
+
+    @Test
+    void testRecursiveEntryIsRejected() {
+        assertTrue(guard.enter(a));
+        assertTrue(guard.enter(b));
+        assertFalse(guard.enter(a));
+        assertFalse(guard.enter(b));
+        guard.exit(b);
+        guard.exit(a);
+    }
+
+    @Test
+    void testSequentialEntriesAreAllowed() {
+        assertTrue(guard.enter(a));
+        assertTrue(guard.enter(b));
+        guard.exit(b);
+        assertTrue(guard.enter(b));
+        guard.exit(b);
+        guard.exit(a);
+
+        assertTrue(guard.enter(a));
+        guard.exit(a);
+    }
+
+    @Test
+    void testEnterOnceVisitsEachEntryOncePerOutermostCall() {
+        assertTrue(guard.enterOnce(a));
+        assertTrue(guard.enterOnce(b));
+        guard.exit(b);
+        assertFalse(guard.enterOnce(b));
+        guard.exit(a);
+
+        // A new outermost call starts a new generation
+        assertTrue(guard.enterOnce(b));
+        guard.exit(b);
+    }
+
+    @Test
+    void testEntriesAreTrackedPerThread() throws Exception {
+        assertTrue(guard.enter(a));
+
+        final AtomicBoolean enteredByOtherThread = new AtomicBoolean();
+        final Thread other = new Thread(() -> {
+            enteredByOtherThread.set(guard.enter(a));
+            guard.exit(a);
+        });
+        other.start();
+        other.join();
+
+        assertTrue(enteredByOtherThread.get());
+        assertFalse(guard.enter(a));
+        guard.exit(a);
+    }
+
+    @Test
+    void testUnbalancedExitIsDetected() {
+        assertThrows(IllegalStateException.class, () -> guard.exit(a));
+
+        assertTrue(guard.enter(a));
+        assertThrows(IllegalStateException.class, () -> guard.exit(b));
+        guard.exit(a);
+    }
+
+}
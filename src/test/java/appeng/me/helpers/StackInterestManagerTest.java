@@ -0,0 +1,109 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.network.chat.TextComponent;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.BootstrapMinecraft;
+import appeng.util.item.AEItemStack;
+
+@BootstrapMinecraft
+class StackInterestManagerTest {
+
+    private final StackInterestManager<String> interests = new StackInterestManager<>();
+
+    @Test
+    void testPreciseInterest() {
+        interests.put(stack(new ItemStack(Items.DIAMOND)), null, "a");
+
+        assertThat(interests.get(stack(new ItemStack(Items.DIAMOND, 5)))).containsExactly("a");
+        assertThat(interests.get(stack(named(Items.DIAMOND)))).isEmpty();
+        assertThat(interests.get(stack(new ItemStack(Items.EMERALD)))).isEmpty();
+    }
+
+    @Test
+    void testFuzzyInterestMatchesAllVariants() {
+        interests.put(stack(new ItemStack(Items.DIAMOND)), FuzzyMode.IGNORE_ALL, "a");
+
+        assertThat(interests.get(stack(named(Items.DIAMOND)))).containsExactly("a");
+        assertThat(interests.get(stack(new ItemStack(Items.EMERALD)))).isEmpty();
+    }
+
+    @Test
+    void testFuzzyInterestUsesDamageBreakpoint() {
+        interests.put(stack(damaged(0)), FuzzyMode.PERCENT_50, "a");
+
+        assertThat(interests.get(stack(damaged(10)))).containsExactly("a");
+        assertThat(interests.get(stack(damaged(Items.DIAMOND_SWORD.getMaxDamage() - 1)))).isEmpty();
+    }
+
+    @Test
+    void testWatcherMatchingTwiceIsReportedOnce() {
+        interests.put(stack(new ItemStack(Items.DIAMOND)), null, "a");
+        interests.put(stack(new ItemStack(Items.DIAMOND)), FuzzyMode.IGNORE_ALL, "a");
+
+        assertThat(interests.get(stack(new ItemStack(Items.DIAMOND)))).containsExactly("a");
+    }
+
+    @Test
+    void testRemove() {
+        interests.put(stack(new ItemStack(Items.DIAMOND)), null, "a");
+        interests.put(stack(new ItemStack(Items.DIAMOND)), FuzzyMode.IGNORE_ALL, "b");
+
+        assertThat(interests.remove(stack(new ItemStack(Items.DIAMOND)), null, "a")).isTrue();
+        assertThat(interests.remove(stack(new ItemStack(Items.DIAMOND)), null, "a")).isFalse();
+        assertThat(interests.remove(stack(new ItemStack(Items.DIAMOND)), FuzzyMode.IGNORE_ALL, "b")).isTrue();
+        assertThat(interests.get(stack(new ItemStack(Items.DIAMOND)))).isEmpty();
+    }
+
+    @Test
+    void testChangesDuringTransactionsAreDeferred() {
+        interests.enableTransactions();
+        interests.put(stack(new ItemStack(Items.DIAMOND)), null, "a");
+        assertThat(interests.get(stack(new ItemStack(Items.DIAMOND)))).isEmpty();
+        interests.disableTransactions();
+
+        assertThat(interests.get(stack(new ItemStack(Items.DIAMOND)))).containsExactly("a");
+    }
+
+    private static IAEItemStack stack(ItemStack stack) {
+        return AEItemStack.fromItemStack(stack);
+    }
+
+    private static ItemStack named(Item item) {
+        ItemStack stack = new ItemStack(item);
+        stack.setHoverName(new TextComponent("Named"));
+        return stack;
+    }
+
+    private static ItemStack damaged(int damage) {
+        ItemStack stack = new ItemStack(Items.DIAMOND_SWORD);
+        stack.setDamageValue(damage);
+        return stack;
+    }
+}
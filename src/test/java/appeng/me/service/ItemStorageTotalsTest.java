@@ -0,0 +1,116 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.BootstrapMinecraft;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+@BootstrapMinecraft
+class ItemStorageTotalsTest {
+
+    private final ItemList storageList = new ItemList();
+
+    private final ItemStorageTotals totals = new ItemStorageTotals();
+
+    @Test
+    void testRebuildMatchesStorageList() {
+        storageList.add(stack(new ItemStack(Items.DIAMOND), 10));
+        storageList.add(stack(sword(0), 2));
+        storageList.add(stack(sword(Items.DIAMOND_SWORD.getMaxDamage() - 1), 3));
+        totals.rebuild(storageList);
+
+        assertEquals(15, totals.getTotal());
+        assertFuzzyTotalsMatchStorageList();
+    }
+
+    @Test
+    void testIncrementalChangesMatchRebuild() {
+        totals.rebuild(storageList);
+
+        change(stack(sword(0), 4));
+        change(stack(sword(100), 6));
+        change(stack(sword(Items.DIAMOND_SWORD.getMaxDamage() - 1), 1));
+        change(stack(sword(100), -2));
+        change(stack(new ItemStack(Items.STICK), 7));
+
+        assertEquals(16, totals.getTotal());
+        assertFuzzyTotalsMatchStorageList();
+    }
+
+    @Test
+    void testItemsThatAreRemovedCompletelyAreForgotten() {
+        totals.rebuild(storageList);
+
+        change(stack(sword(0), 4));
+        change(stack(sword(0), -4));
+
+        assertEquals(0, totals.getTotal());
+        assertEquals(0, totals.getFuzzyTotal(stack(sword(0), 1), FuzzyMode.PERCENT_50));
+    }
+
+    @Test
+    void testRemovingMoreThanStoredInvalidatesTotals() {
+        storageList.add(stack(new ItemStack(Items.DIAMOND), 2));
+        totals.rebuild(storageList);
+
+        totals.add(stack(new ItemStack(Items.DIAMOND), 1), -3);
+
+        assertFalse(totals.isValid());
+    }
+
+    private void change(IAEItemStack change) {
+        storageList.addStorage(change);
+        totals.add(change, change.getStackSize());
+    }
+
+    private void assertFuzzyTotalsMatchStorageList() {
+        IAEItemStack[] filters = { stack(new ItemStack(Items.DIAMOND), 1), stack(sword(0), 1),
+                stack(sword(Items.DIAMOND_SWORD.getMaxDamage() - 1), 1) };
+        for (IAEItemStack filter : filters) {
+            for (FuzzyMode mode : FuzzyMode.values()) {
+                long expected = 0;
+                for (IAEItemStack stack : storageList.findFuzzy(filter, mode)) {
+                    expected += stack.getStackSize();
+                }
+                assertEquals(expected, totals.getFuzzyTotal(filter, mode), filter + " " + mode);
+            }
+        }
+    }
+
+    private static IAEItemStack stack(ItemStack stack, long amount) {
+        return AEItemStack.fromItemStack(stack).setStackSize(amount);
+    }
+
+    private static ItemStack sword(int damage) {
+        ItemStack stack = new ItemStack(Items.DIAMOND_SWORD);
+        stack.setDamageValue(damage);
+        return stack;
+    }
+}
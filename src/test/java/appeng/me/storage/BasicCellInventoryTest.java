@@ -0,0 +1,274 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraftforge.items.IItemHandler;
+
+import appeng.api.config.Actionable;
+import appeng.api.config.FuzzyMode;
+import appeng.api.implementations.items.IStorageCell;
+import appeng.api.networking.security.IActionSource;
+import appeng.api.storage.IStorageChannel;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.helpers.BaseActionSource;
+import appeng.util.BootstrapMinecraft;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+@BootstrapMinecraft
+class BasicCellInventoryTest {
+
+    private static final IActionSource SRC = new BaseActionSource();
+
+    /**
+     * A cell of 10 bytes has room for 16 items of a single type, after the 8 bytes for the type.
+     */
+    @Test
+    void testBatchDoesNotExceedByteLimit() {
+        final BasicCellInventory<IAEItemStack> cell = createCell(10, 63);
+
+        final List<IAEItemStack> leftovers = cell.injectMultiple(
+                List.of(stack(Items.DIAMOND, 64), stack(Items.DIAMOND, 64)), Actionable.MODULATE, SRC);
+
+        assertEquals(48, leftovers.get(0).getStackSize());
+        assertEquals(64, leftovers.get(1).getStackSize());
+        assertEquals(16, cell.getStoredItemCount());
+    }
+
+    @Test
+    void testBatchDoesNotExceedTypeLimit() {
+        final BasicCellInventory<IAEItemStack> cell = createCell(100, 1);
+
+        final List<IAEItemStack> leftovers = cell.injectMultiple(
+                List.of(stack(Items.DIAMOND, 1), stack(Items.APPLE, 1)), Actionable.MODULATE, SRC);
+
+        assertNull(leftovers.get(0));
+        assertEquals(1, leftovers.get(1).getStackSize());
+        assertEquals(1, cell.getStoredItemTypes());
+    }
+
+    @Test
+    void testBatchIsForwardedByHandler() {
+        final BasicCellInventory<IAEItemStack> cell = createCell(10, 63);
+        final MEInventoryHandler<IAEItemStack> handler = new MEInventoryHandler<>(cell, TestChannel.INSTANCE);
+
+        final IAEItemStack refused = stack(Items.DIAMOND, 64);
+        final List<IAEItemStack> leftovers = handler.injectMultiple(
+                List.of(stack(Items.DIAMOND, 64), refused), Actionable.MODULATE, SRC);
+
+        assertEquals(48, leftovers.get(0).getStackSize());
+        assertSame(refused, leftovers.get(1));
+        assertEquals(16, cell.getStoredItemCount());
+    }
+
+    @Test
+    void testNetworkBatchInjectionMatchesSingleInjections() {
+        final List<IAEItemStack> inputs = List.of(stack(Items.DIAMOND, 64), stack(Items.APPLE, 64),
+                stack(Items.DIAMOND, 10));
+
+        final List<BasicCellInventory<IAEItemStack>> batchCells = List.of(createCell(10, 63), createCell(30, 63));
+        final List<IAEItemStack> batchLeftovers = createNetwork(batchCells).injectMultiple(copyAll(inputs),
+                Actionable.MODULATE, SRC);
+
+        final List<BasicCellInventory<IAEItemStack>> singleCells = List.of(createCell(10, 63), createCell(30, 63));
+        final NetworkInventoryHandler<IAEItemStack> singleNetwork = createNetwork(singleCells);
+        for (int i = 0; i < inputs.size(); i++) {
+            assertSameSize(singleNetwork.injectItems(inputs.get(i).copy(), Actionable.MODULATE, SRC),
+                    batchLeftovers.get(i));
+        }
+
+        assertSameContent(singleCells, batchCells);
+    }
+
+    @Test
+    void testNetworkBatchExtractionMatchesSingleExtractions() {
+        final List<BasicCellInventory<IAEItemStack>> batchCells = List.of(createCell(10, 63), createCell(30, 63));
+        final List<BasicCellInventory<IAEItemStack>> singleCells = List.of(createCell(10, 63), createCell(30, 63));
+        final NetworkInventoryHandler<IAEItemStack> batchNetwork = createNetwork(batchCells);
+        final NetworkInventoryHandler<IAEItemStack> singleNetwork = createNetwork(singleCells);
+        for (final IAEItemStack input : List.of(stack(Items.DIAMOND, 40), stack(Items.APPLE, 20))) {
+            batchNetwork.injectItems(input.copy(), Actionable.MODULATE, SRC);
+            singleNetwork.injectItems(input.copy(), Actionable.MODULATE, SRC);
+        }
+
+        final List<IAEItemStack> requests = List.of(stack(Items.DIAMOND, 20), stack(Items.APPLE, 5),
+                stack(Items.DIAMOND, 30));
+        final List<IAEItemStack> extracted = batchNetwork.extractMultiple(copyAll(requests), Actionable.MODULATE,
+                SRC);
+        for (int i = 0; i < requests.size(); i++) {
+            assertSameSize(singleNetwork.extractItems(requests.get(i).copy(), Actionable.MODULATE, SRC),
+                    extracted.get(i));
+        }
+
+        assertSameContent(singleCells, batchCells);
+    }
+
+    private static NetworkInventoryHandler<IAEItemStack> createNetwork(List<BasicCellInventory<IAEItemStack>> cells) {
+        // Security is only consulted for player and machine sources
+        final NetworkInventoryHandler<IAEItemStack> network = new NetworkInventoryHandler<>(TestChannel.INSTANCE,
+                null);
+        int priority = cells.size();
+        for (BasicCellInventory<IAEItemStack> cell : cells) {
+            final MEInventoryHandler<IAEItemStack> handler = new MEInventoryHandler<>(cell, TestChannel.INSTANCE);
+            handler.setPriority(priority--);
+            network.addNewStorage(handler);
+        }
+        return network;
+    }
+
+    private static List<IAEItemStack> copyAll(List<IAEItemStack> stacks) {
+        return stacks.stream().map(IAEItemStack::copy).toList();
+    }
+
+    private static void assertSameSize(IAEItemStack expected, IAEItemStack actual) {
+        assertEquals(expected == null ? 0 : expected.getStackSize(), actual == null ? 0 : actual.getStackSize());
+    }
+
+    private static void assertSameContent(List<BasicCellInventory<IAEItemStack>> expected,
+            List<BasicCellInventory<IAEItemStack>> actual) {
+        for (int i = 0; i < expected.size(); i++) {
+            for (Item item : List.of(Items.DIAMOND, Items.APPLE)) {
+                assertSameSize(expected.get(i).getAvailableItems(new ItemList()).findPrecise(stack(item, 1)),
+                        actual.get(i).getAvailableItems(new ItemList()).findPrecise(stack(item, 1)));
+            }
+        }
+    }
+
+    private static BasicCellInventory<IAEItemStack> createCell(int bytes, int types) {
+        return new BasicCellInventory<>(new TestCell(bytes, types), new ItemStack(Items.PAPER), null);
+    }
+
+    private static IAEItemStack stack(Item item, int count) {
+        return AEItemStack.fromItemStack(new ItemStack(item, count));
+    }
+
+    private record TestCell(int bytes, int types) implements IStorageCell<IAEItemStack> {
+
+        @Override
+        public int getBytes(@Nonnull ItemStack cellItem) {
+            return this.bytes;
+        }
+
+        @Override
+        public int getBytesPerType(@Nonnull ItemStack cellItem) {
+            return 8;
+        }
+
+        @Override
+        public int getTotalTypes(@Nonnull ItemStack cellItem) {
+            return this.types;
+        }
+
+        @Override
+        public boolean isBlackListed(@Nonnull ItemStack cellItem, @Nonnull IAEItemStack requestedAddition) {
+            return false;
+        }
+
+        @Override
+        public boolean storableInStorageCell() {
+            return false;
+        }
+
+        @Override
+        public boolean isStorageCell(@Nonnull ItemStack i) {
+            return true;
+        }
+
+        @Override
+        public double getIdleDrain() {
+            return 0;
+        }
+
+        @Override
+        public IStorageChannel<IAEItemStack> getChannel() {
+            return TestChannel.INSTANCE;
+        }
+
+        @Override
+        public boolean isEditable(ItemStack is) {
+            return false;
+        }
+
+        @Override
+        public IItemHandler getConfigInventory(ItemStack is) {
+            return null;
+        }
+
+        @Override
+        public FuzzyMode getFuzzyMode(ItemStack is) {
+            return FuzzyMode.IGNORE_ALL;
+        }
+
+        @Override
+        public void setFuzzyMode(ItemStack is, FuzzyMode fzMode) {
+        }
+    }
+
+    /**
+     * The registered item channel reads the config, which isn't loaded in tests.
+     */
+    private static class TestChannel implements IStorageChannel<IAEItemStack> {
+
+        private static final TestChannel INSTANCE = new TestChannel();
+
+        @Nonnull
+        @Override
+        public ResourceLocation getId() {
+            return new ResourceLocation("appliedenergistics2", "test_item");
+        }
+
+        @Override
+        public IItemList<IAEItemStack> createList() {
+            return new ItemList();
+        }
+
+        @Override
+        public IAEItemStack createStack(@Nonnull Object input) {
+            return AEItemStack.fromItemStack((ItemStack) input);
+        }
+
+        @Override
+        public IAEItemStack readFromPacket(@Nonnull FriendlyByteBuf input) {
+            return AEItemStack.fromPacket(input);
+        }
+
+        @Override
+        public IAEItemStack createFromNBT(@Nonnull CompoundTag nbt) {
+            return AEItemStack.fromNBT(nbt);
+        }
+    }
+
+}
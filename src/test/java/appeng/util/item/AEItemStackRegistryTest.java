@@ -0,0 +1,118 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.network.chat.TextComponent;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import appeng.util.BootstrapMinecraft;
+
+@BootstrapMinecraft
+class AEItemStackRegistryTest {
+
+    @Test
+    void testEqualStacksShareDefinition() {
+        AESharedItemStack a = AEItemStackRegistry.getRegisteredStack(new ItemStack(Items.DIAMOND, 5));
+        AESharedItemStack b = AEItemStackRegistry.getRegisteredStack(new ItemStack(Items.DIAMOND, 32));
+        assertSame(a, b);
+        assertEquals(1, a.getDefinition().getCount());
+    }
+
+    @Test
+    void testDifferentTagsAreNotShared() {
+        ItemStack named = new ItemStack(Items.DIAMOND_SWORD);
+        named.setHoverName(new TextComponent("Hello World"));
+
+        AESharedItemStack a = AEItemStackRegistry.getRegisteredStack(new ItemStack(Items.DIAMOND_SWORD));
+        AESharedItemStack b = AEItemStackRegistry.getRegisteredStack(named);
+        assertNotSame(a, b);
+        assertSame(b, AEItemStackRegistry.getRegisteredStack(named.copy()));
+    }
+
+    @Test
+    void testLookupDoesNotModifyStack() {
+        ItemStack stack = new ItemStack(Items.STICK, 17);
+        AEItemStackRegistry.getRegisteredStack(stack);
+        AEItemStackRegistry.getRegisteredStack(stack);
+        assertEquals(17, stack.getCount());
+    }
+
+    @Test
+    void testRegisteredStackIsNotTheLookupStack() {
+        ItemStack stack = new ItemStack(Items.APPLE, 3);
+        AESharedItemStack shared = AEItemStackRegistry.getRegisteredStack(stack);
+        assertNotSame(stack, shared.getDefinition());
+    }
+
+    @Test
+    void testEmptyStackIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> AEItemStackRegistry.getRegisteredStack(ItemStack.EMPTY));
+    }
+
+    @Test
+    void testHitsAreCounted() {
+        AEItemStackRegistry.getRegisteredStack(new ItemStack(Items.BONE));
+        long lookups = AEItemStackRegistry.getLookups();
+        long hits = AEItemStackRegistry.getHits();
+
+        AEItemStackRegistry.getRegisteredStack(new ItemStack(Items.BONE));
+
+        assertTrue(AEItemStackRegistry.getLookups() > lookups);
+        assertTrue(AEItemStackRegistry.getHits() > hits);
+        assertTrue(AEItemStackRegistry.size() > 0);
+    }
+
+    @Test
+    void testConcurrentRegistrationYieldsOneDefinition() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<AESharedItemStack>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> {
+                    ItemStack stack = new ItemStack(Items.ENCHANTED_BOOK);
+                    stack.setHoverName(new TextComponent("Concurrent"));
+                    return AEItemStackRegistry.getRegisteredStack(stack);
+                }));
+            }
+
+            AESharedItemStack first = results.get(0).get();
+            for (Future<AESharedItemStack> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
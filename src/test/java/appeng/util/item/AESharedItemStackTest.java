@@ -18,6 +18,9 @@
 
 package appeng.util.item;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
 import java.util.IdentityHashMap;
 import java.util.Map;
 
@@ -96,4 +99,42 @@ void testEquals() {
         tester.testEquals();
     }
 
+    /**
+     * The order in which tag entries were added must not affect hashing or equality.
+     */
+    @Test
+    void testTagOrderDoesNotMatter() {
+        CompoundTag tag1 = new CompoundTag();
+        tag1.putInt("a", 1);
+        tag1.putString("b", "text");
+        tag1.putDouble("c", 0.0);
+        CompoundTag tag2 = new CompoundTag();
+        tag2.putDouble("c", -0.0);
+        tag2.putString("b", "text");
+        tag2.putInt("a", 1);
+
+        ItemStack stack1 = new ItemStack(Items.DIAMOND);
+        stack1.setTag(tag1);
+        ItemStack stack2 = new ItemStack(Items.DIAMOND);
+        stack2.setTag(tag2);
+
+        assertEquals(TagFingerprint.of(tag1), TagFingerprint.of(tag2));
+        assertEquals(new AESharedItemStack(stack1), new AESharedItemStack(stack2));
+        assertEquals(new AESharedItemStack(stack1).hashCode(), new AESharedItemStack(stack2).hashCode());
+    }
+
+    @Test
+    void testDifferentTagsHaveDifferentFingerprints() {
+        CompoundTag tag1 = new CompoundTag();
+        tag1.putInt("a", 1);
+        CompoundTag tag2 = new CompoundTag();
+        tag2.putLong("a", 1);
+        CompoundTag tag3 = new CompoundTag();
+        tag3.putInt("a", 2);
+
+        assertNotEquals(TagFingerprint.of(tag1), TagFingerprint.of(tag2));
+        assertNotEquals(TagFingerprint.of(tag1), TagFingerprint.of(tag3));
+        assertNotEquals(TagFingerprint.NONE, TagFingerprint.of(new CompoundTag()));
+    }
+
 }
@@ -0,0 +1,109 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.network.chat.TextComponent;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.BootstrapMinecraft;
+
+@BootstrapMinecraft
+class BucketedItemVariantListTest {
+
+    private static final int[] DURABILITIES = { 0, 1, 10, 24, 25, 26, 49, 50, 51, 74, 75, 76, 98, 99, 100 };
+
+    private final BucketedItemVariantList bucketed = new BucketedItemVariantList();
+    private final FuzzyItemVariantList reference = new FuzzyItemVariantList();
+
+    /**
+     * Every fuzzy query has to select the same variants as the damage ranges of {@link FuzzyItemVariantList}.
+     */
+    @Test
+    void testFuzzyQueriesMatchSortedList() {
+        for (int durability : DURABILITIES) {
+            add(diamondSword(durability, null));
+            add(diamondSword(durability, "Named"));
+        }
+
+        assertSameQueries();
+    }
+
+    @Test
+    void testRemovedVariantsAreRemovedFromBuckets() {
+        for (int durability : DURABILITIES) {
+            add(diamondSword(durability, null));
+        }
+
+        // Emptied records are removed while iterating
+        bucketed.findPrecise(diamondSword(50, null)).setStackSize(0);
+        reference.findPrecise(diamondSword(50, null)).setStackSize(0);
+        for (Iterator<IAEItemStack> it = bucketed.iterator(); it.hasNext();) {
+            it.next();
+        }
+        for (Iterator<IAEItemStack> it = reference.iterator(); it.hasNext();) {
+            it.next();
+        }
+
+        assertSameQueries();
+        assertThat(bucketed.findFuzzy(diamondSword(100, null), FuzzyMode.PERCENT_50))
+                .noneMatch(stack -> stack.getStackSize() == 0);
+    }
+
+    @Test
+    void testEmptyList() {
+        assertThat(bucketed.findFuzzy(diamondSword(100, null), FuzzyMode.PERCENT_75)).isEmpty();
+        assertThat(bucketed.findFuzzy(diamondSword(100, null), FuzzyMode.IGNORE_ALL)).isEmpty();
+    }
+
+    private void assertSameQueries() {
+        for (FuzzyMode mode : FuzzyMode.values()) {
+            for (int durability : DURABILITIES) {
+                final IAEItemStack filter = diamondSword(durability, null);
+                assertThat(bucketed.findFuzzy(filter, mode))
+                        .as("%s with %d%% durability", mode, durability)
+                        .containsExactlyInAnyOrderElementsOf(reference.findFuzzy(filter, mode));
+            }
+        }
+    }
+
+    private void add(IAEItemStack stack) {
+        bucketed.add(stack);
+        reference.add(stack);
+    }
+
+    private static AEItemStack diamondSword(int durabilityPercent, String customName) {
+        ItemStack is = new ItemStack(Items.DIAMOND_SWORD);
+        if (customName != null) {
+            is.setHoverName(new TextComponent(customName));
+        }
+        int damage = (int) ((100 - durabilityPercent) / 100.0f * is.getMaxDamage());
+        is.setDamageValue(damage);
+        return AEItemStack.fromItemStack(is);
+    }
+
+}
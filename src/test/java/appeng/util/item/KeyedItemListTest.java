@@ -0,0 +1,170 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.network.chat.TextComponent;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.BootstrapMinecraft;
+
+@BootstrapMinecraft
+class KeyedItemListTest {
+
+    private final ItemStackKeys keys = new ItemStackKeys();
+
+    private final KeyedItemList itemList = new KeyedItemList(keys);
+
+    @Test
+    void testAddMergesAllStackProperties() {
+        itemList.add(stack(Items.DIAMOND, 1, 0, false));
+        itemList.add(stack(Items.DIAMOND, 0, 1, false));
+        itemList.add(stack(Items.DIAMOND, 0, 0, true));
+        assertPreciseStackProperties(stack(Items.DIAMOND, 0, 0, false), 1, 1, true);
+    }
+
+    @Test
+    void testAddStorageForNewAndExistingItem() {
+        itemList.addStorage(stack(Items.DIAMOND, 1, 1, true));
+        assertPreciseStackProperties(stack(Items.DIAMOND, 0, 0, false), 1, 1, true);
+
+        itemList.addStorage(stack(Items.DIAMOND, 2, 5, false));
+        assertPreciseStackProperties(stack(Items.DIAMOND, 0, 0, false), 3, 1, true);
+    }
+
+    @Test
+    void testAddCraftingAndRequestableForNewItem() {
+        itemList.addCrafting(stack(Items.DIAMOND, 1, 2, true));
+        assertPreciseStackProperties(stack(Items.DIAMOND, 0, 0, false), 0, 2, true);
+
+        itemList.addRequestable(stack(Items.APPLE, 1, 2, true));
+        assertPreciseStackProperties(stack(Items.APPLE, 0, 0, false), 0, 2, false);
+    }
+
+    @Test
+    void testEntriesAreRemovedWhenTheyBecomeEmpty() {
+        itemList.addStorage(stack(Items.DIAMOND, 5, 0, false));
+        itemList.addStorage(stack(Items.DIAMOND, -5, 0, false));
+
+        assertTrue(itemList.isEmpty());
+        assertNull(itemList.findPrecise(stack(Items.DIAMOND, 0, 0, false)));
+        assertThat(itemList.findFuzzy(stack(Items.DIAMOND, 0, 0, false), FuzzyMode.IGNORE_ALL)).isEmpty();
+        assertEquals(0, keys.size());
+    }
+
+    @Test
+    void testIdsAreReleasedOnlyByTheLastList() {
+        KeyedItemList otherList = new KeyedItemList(keys);
+        itemList.addStorage(stack(Items.DIAMOND, 5, 0, false));
+        otherList.addStorage(stack(Items.DIAMOND, 5, 0, false));
+
+        itemList.resetStatus();
+        assertEquals(1, keys.size());
+        assertEquals(5, otherList.findPrecise(stack(Items.DIAMOND, 0, 0, false)).getStackSize());
+
+        otherList.addStorage(stack(Items.DIAMOND, -5, 0, false));
+        assertEquals(0, keys.size());
+
+        itemList.addStorage(stack(Items.APPLE, 3, 0, false));
+        assertEquals(3, itemList.findPrecise(stack(Items.APPLE, 0, 0, false)).getStackSize());
+        assertNull(otherList.findPrecise(stack(Items.DIAMOND, 0, 0, false)));
+    }
+
+    @Test
+    void testReturnedStacksAreNotBackedByTheList() {
+        itemList.addStorage(stack(Items.DIAMOND, 5, 0, false));
+        itemList.findPrecise(stack(Items.DIAMOND, 0, 0, false)).setStackSize(100);
+        assertPreciseStackProperties(stack(Items.DIAMOND, 0, 0, false), 5, 0, false);
+    }
+
+    @Test
+    void testModificationWhileIterating() {
+        itemList.addStorage(stack(Items.DIAMOND, 1, 0, false));
+        itemList.addStorage(stack(Items.APPLE, 1, 0, false));
+
+        Iterator<IAEItemStack> it = itemList.iterator();
+        IAEItemStack first = it.next();
+        itemList.addStorage(stack(Items.STICK, 1, 0, false));
+        itemList.addStorage(first.copy().setStackSize(-1));
+
+        assertTrue(it.hasNext());
+        it.next();
+        assertFalse(it.hasNext());
+        assertEquals(2, itemList.size());
+    }
+
+    /**
+     * Fuzzy searches have to return the same variants as {@link ItemList}.
+     */
+    @Test
+    void testFindFuzzyMatchesItemList() {
+        ItemList reference = new ItemList();
+        for (int durability = 0; durability <= 100; durability += 5) {
+            itemList.add(diamondSword(durability, null));
+            reference.add(diamondSword(durability, null));
+        }
+        itemList.add(diamondSword(100, "master sword"));
+        reference.add(diamondSword(100, "master sword"));
+
+        for (FuzzyMode mode : FuzzyMode.values()) {
+            for (IAEItemStack filter : new IAEItemStack[] { diamondSword(100, null), diamondSword(0, null) }) {
+                assertThat(itemList.findFuzzy(filter, mode))
+                        .containsExactlyInAnyOrderElementsOf(reference.findFuzzy(filter, mode));
+            }
+        }
+    }
+
+    private void assertPreciseStackProperties(IAEItemStack stack, long stored, long requestable, boolean craftable) {
+        IAEItemStack storedStack = itemList.findPrecise(stack);
+        assertEquals(stored, storedStack.getStackSize(), "stored amount");
+        assertEquals(requestable, storedStack.getCountRequestable(), "requestable amount");
+        assertEquals(craftable, storedStack.isCraftable(), "craftable");
+    }
+
+    private static AEItemStack stack(Item item, long stored, long requestable, boolean craftable) {
+        AEItemStack ais = AEItemStack.fromItemStack(new ItemStack(item));
+        ais.setStackSize(stored);
+        ais.setCountRequestable(requestable);
+        ais.setCraftable(craftable);
+        return ais;
+    }
+
+    private static AEItemStack diamondSword(int durabilityPercent, String customName) {
+        ItemStack is = new ItemStack(Items.DIAMOND_SWORD);
+        if (customName != null) {
+            is.setHoverName(new TextComponent(customName));
+        }
+        is.setDamageValue((int) ((100 - durabilityPercent) / 100.0f * is.getMaxDamage()));
+        return AEItemStack.fromItemStack(is);
+    }
+
+}
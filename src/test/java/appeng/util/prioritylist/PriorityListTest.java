@@ -0,0 +1,115 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.prioritylist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.network.chat.TextComponent;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.BootstrapMinecraft;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+@BootstrapMinecraft
+class PriorityListTest {
+
+    private static final int MAX_DAMAGE = Items.DIAMOND_SWORD.getMaxDamage();
+
+    @Test
+    void testPreciseListMatchesExactStacksOnly() {
+        ItemList list = new ItemList();
+        list.add(stack(new ItemStack(Items.DIAMOND)));
+        PrecisePriorityList<IAEItemStack> priorityList = new PrecisePriorityList<>(list);
+
+        assertTrue(priorityList.isListed(stack(new ItemStack(Items.DIAMOND, 12))));
+        assertFalse(priorityList.isListed(stack(named(new ItemStack(Items.DIAMOND)))));
+        assertFalse(priorityList.isListed(stack(new ItemStack(Items.EMERALD))));
+    }
+
+    @Test
+    void testFuzzyListIgnoresTagsOfUndamageableItems() {
+        ItemList list = new ItemList();
+        list.add(stack(new ItemStack(Items.DIAMOND)));
+
+        for (FuzzyMode mode : FuzzyMode.values()) {
+            FuzzyPriorityList<IAEItemStack> priorityList = new FuzzyPriorityList<>(list, mode);
+            assertTrue(priorityList.isListed(stack(named(new ItemStack(Items.DIAMOND)))));
+            assertFalse(priorityList.isListed(stack(new ItemStack(Items.EMERALD))));
+        }
+    }
+
+    /**
+     * The compiled fuzzy list has to give the same answers as a fuzzy search of the underlying item list.
+     */
+    @Test
+    void testFuzzyListMatchesFuzzySearch() {
+        int[] damageValues = { 0, 1, MAX_DAMAGE / 4, MAX_DAMAGE / 2, MAX_DAMAGE / 2 + 1, MAX_DAMAGE * 3 / 4,
+                MAX_DAMAGE - 1, MAX_DAMAGE };
+
+        List<ItemList> lists = new ArrayList<>();
+        lists.add(new ItemList());
+        for (int damage : damageValues) {
+            ItemList single = new ItemList();
+            single.add(stack(sword(damage)));
+            lists.add(single);
+        }
+        ItemList mixed = new ItemList();
+        mixed.add(stack(sword(1)));
+        mixed.add(stack(sword(MAX_DAMAGE - 1)));
+        mixed.add(stack(new ItemStack(Items.DIAMOND)));
+        lists.add(mixed);
+
+        for (ItemList list : lists) {
+            for (FuzzyMode mode : FuzzyMode.values()) {
+                FuzzyPriorityList<IAEItemStack> priorityList = new FuzzyPriorityList<>(list, mode);
+                for (int damage : damageValues) {
+                    IAEItemStack input = stack(sword(damage));
+                    boolean expected = !list.findFuzzy(input, mode).isEmpty();
+                    assertEquals(expected, priorityList.isListed(input), mode + " with damage " + damage);
+                }
+            }
+        }
+    }
+
+    private static IAEItemStack stack(ItemStack stack) {
+        return AEItemStack.fromItemStack(stack);
+    }
+
+    private static ItemStack named(ItemStack stack) {
+        stack.setHoverName(new TextComponent("Named"));
+        return stack;
+    }
+
+    private static ItemStack sword(int damage) {
+        ItemStack stack = new ItemStack(Items.DIAMOND_SWORD);
+        stack.setDamageValue(damage);
+        return stack;
+    }
+}